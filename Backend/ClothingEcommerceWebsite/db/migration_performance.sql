@@ -0,0 +1,72 @@
+-- Các cột, bảng và chỉ mục mà backend cần thêm vào schema clothingshop (ddl-auto: none nên không tự tạo).
+-- Chạy một lần trên database đã import clothingshop.sql, MySQL 8.
+
+-- Giỏ hàng: upsert số lượng dùng ON DUPLICATE KEY nên cần unique (cart_id, variant_id).
+-- Gộp các dòng trùng vào dòng có id nhỏ nhất trước khi tạo index
+UPDATE cart_items keep_row
+    JOIN (SELECT MIN(id) AS keep_id, SUM(quantity) AS total
+          FROM cart_items
+          GROUP BY cart_id, variant_id
+          HAVING COUNT(*) > 1) dup ON keep_row.id = dup.keep_id
+SET keep_row.quantity = dup.total;
+
+DELETE ci
+FROM cart_items ci
+    JOIN (SELECT cart_id, variant_id, MIN(id) AS keep_id
+          FROM cart_items
+          GROUP BY cart_id, variant_id
+          HAVING COUNT(*) > 1) dup
+        ON ci.cart_id = dup.cart_id AND ci.variant_id = dup.variant_id AND ci.id <> dup.keep_id;
+
+ALTER TABLE cart_items
+    ADD CONSTRAINT uk_cart_items_cart_variant UNIQUE (cart_id, variant_id);
+
+-- Thời điểm giỏ hàng thay đổi lần cuối, dùng để dọn giỏ bỏ quên (cart cũ được backfill lúc chạy)
+ALTER TABLE carts
+    ADD COLUMN updated_at DATETIME(6) NULL,
+    ADD INDEX idx_carts_updated_at (updated_at);
+
+-- Tổng hợp đánh giá theo sản phẩm
+CREATE TABLE IF NOT EXISTS product_rating_summaries (
+    product_id     BIGINT NOT NULL,
+    review_count   INT    NOT NULL,
+    rating_sum     BIGINT NOT NULL,
+    average_rating DOUBLE NOT NULL,
+    star_1         INT    NOT NULL,
+    star_2         INT    NOT NULL,
+    star_3         INT    NOT NULL,
+    star_4         INT    NOT NULL,
+    star_5         INT    NOT NULL,
+    PRIMARY KEY (product_id),
+    INDEX idx_rating_summary_average (average_rating, review_count)
+);
+
+INSERT INTO product_rating_summaries
+    (product_id, review_count, rating_sum, average_rating, star_1, star_2, star_3, star_4, star_5)
+SELECT product_id, COUNT(*), SUM(rating), AVG(rating), SUM(rating = 1), SUM(rating = 2),
+       SUM(rating = 3), SUM(rating = 4), SUM(rating = 5)
+FROM reviews
+GROUP BY product_id
+ON DUPLICATE KEY UPDATE product_id = product_rating_summaries.product_id;
+
+-- Slug cũ của sản phẩm/danh mục để trả 301
+CREATE TABLE IF NOT EXISTS slug_redirects (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    slug_type VARCHAR(20)  NOT NULL,
+    old_slug  VARCHAR(280) NOT NULL,
+    target_id BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_slug_redirects_type_slug UNIQUE (slug_type, old_slug),
+    INDEX idx_slug_redirects_target (slug_type, target_id)
+);
+
+-- Nhật ký thay đổi catalog cho GET /catalog/changes
+CREATE TABLE IF NOT EXISTS catalog_changes (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id   BIGINT      NOT NULL,
+    op          VARCHAR(10) NOT NULL,
+    changed_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_catalog_changes_changed_at (changed_at)
+);
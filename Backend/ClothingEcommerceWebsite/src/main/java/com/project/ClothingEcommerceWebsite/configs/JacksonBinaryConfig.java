@@ -0,0 +1,26 @@
+package com.project.ClothingEcommerceWebsite.configs;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// Client gửi Accept: application/cbor hoặc application/x-jackson-smile thì nhận body nhị phân,
+// mặc định vẫn là JSON. Hai converter dùng builder của Spring Boot nên có cùng cấu hình với ObjectMapper JSON
+// (spring.jackson.*, module, customizer) thay vì ObjectMapper mặc định của Spring MVC.
+@Configuration
+public class JacksonBinaryConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,38 @@
+package com.project.ClothingEcommerceWebsite.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private boolean trustForwardedFor = false;
+    private long idleEvictionSeconds = 600;
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+        private String name;
+        // Bỏ trống = mọi method
+        private String method;
+        private String pattern;
+        private Limit perIp;
+        private Limit perUser;
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private int capacity;
+        private int refillPerMinute;
+    }
+}
@@ -2,6 +2,8 @@ package com.project.ClothingEcommerceWebsite.configs;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import com.nimbusds.jose.util.Base64;
+import com.project.ClothingEcommerceWebsite.utils.CachingJwtDecoder;
+import com.project.ClothingEcommerceWebsite.utils.OffloadedPasswordEncoder;
 import com.project.ClothingEcommerceWebsite.utils.SecurityUtil;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -32,8 +34,14 @@ public class SecurityConfiguration {
     private String jwtKey;
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${auth.password-hashing.threads}") int threads,
+            @Value("${auth.password-hashing.queue-capacity}") int queueCapacity,
+            @Value("${auth.password-hashing.timeout-ms}") long timeoutMillis,
+            @Value("${auth.password-hashing.retry-after-seconds}") long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new OffloadedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity,
+                timeoutMillis, retryAfterSeconds);
     }
 
     @Bean
@@ -42,9 +50,10 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
-        NimbusJwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(
+    public JwtDecoder jwtDecoder(@Value("${jwt.verified-cache-size}") int verifiedCacheSize) {
+        NimbusJwtDecoder nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(
                 getSecretKey()).macAlgorithm(SecurityUtil.JWT_ALGORITHM).build();
+        JwtDecoder jwtDecoder = new CachingJwtDecoder(nimbusJwtDecoder, verifiedCacheSize);
         return token -> {
             try {
                 return jwtDecoder.decode(token);
@@ -71,6 +80,7 @@ public class SecurityConfiguration {
                                 .requestMatchers(HttpMethod.GET, "/api/v1/products/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/api/v1/users/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/api/v1/categories/**").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/api/v1/catalog/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/api/v1/colors/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/api/v1/sizes/**").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/api/v1/reviews/**").permitAll()
@@ -19,7 +19,7 @@ public class UserDetailCustom implements UserDetailsService {
     private final UserService userService;
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userService.getUserByEmail(username).orElseThrow(() -> new NotFoundException("User not found!"));
+        User user = userService.getUserWithRolesByEmail(username).orElseThrow(() -> new NotFoundException("User not found!"));
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
                 user.getPassword(),
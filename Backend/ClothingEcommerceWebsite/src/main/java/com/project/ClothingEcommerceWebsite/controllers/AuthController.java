@@ -47,7 +47,8 @@ public class AuthController {
     
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletResponse response) {
-        Optional<User> user = userService.getUserByEmail(loginRequest.getEmail());
+        // User và roles được nạp một lần rồi cache, UserDetailCustom dùng lại khi authenticate
+        Optional<User> user = userService.getUserWithRolesByEmail(loginRequest.getEmail());
         if (user.isEmpty()) {
             throw new NotFoundException("Email chưa được đăng ký!!");
         }
@@ -1,13 +1,20 @@
 package com.project.ClothingEcommerceWebsite.controllers;
 
+import com.project.ClothingEcommerceWebsite.dtos.request.AddCartItemRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.CartResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.RelatedProductResponse;
 import com.project.ClothingEcommerceWebsite.models.Cart;
 import com.project.ClothingEcommerceWebsite.models.CartItem;
 import com.project.ClothingEcommerceWebsite.services.CartService;
+import com.project.ClothingEcommerceWebsite.services.impl.CoPurchaseIndex;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("${api.prefix}/carts")
@@ -15,12 +22,28 @@ import java.util.List;
 public class CartController {
 
     private final CartService cartService;
+    private final CoPurchaseIndex coPurchaseIndex;
 
     @GetMapping("/{userId}")
     public ResponseEntity<List<CartItem>> getCartItems(@PathVariable Long userId) {
         return ResponseEntity.ok(cartService.getCartItems(userId));
     }
 
+    @GetMapping("/{userId}/view")
+    public ResponseEntity<CartResponse> getCartView(@PathVariable Long userId) {
+        return ResponseEntity.ok(cartService.getCartView(userId));
+    }
+
+    @GetMapping("/{userId}/related")
+    public ResponseEntity<List<RelatedProductResponse>> getRelatedProducts(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "10") int limit) {
+        Set<Long> productIds = cartService.getCartItems(userId).stream()
+                .map(item -> item.getVariant().getProduct().getId())
+                .collect(Collectors.toSet());
+        return ResponseEntity.ok(coPurchaseIndex.relatedToAll(productIds, limit));
+    }
+
     @PostMapping("/{userId}/add")
     public ResponseEntity<CartItem> addItem(
             @PathVariable Long userId,
@@ -29,6 +52,13 @@ public class CartController {
         return ResponseEntity.ok(cartService.addItem(userId, variantId, quantity));
     }
 
+    @PostMapping("/{userId}/add-many")
+    public ResponseEntity<List<CartItem>> addItems(
+            @PathVariable Long userId,
+            @Valid @RequestBody List<@Valid AddCartItemRequest> items) {
+        return ResponseEntity.ok(cartService.addItems(userId, items));
+    }
+
     @PutMapping("/{userId}/update")
     public ResponseEntity<CartItem> updateItem(
             @PathVariable Long userId,
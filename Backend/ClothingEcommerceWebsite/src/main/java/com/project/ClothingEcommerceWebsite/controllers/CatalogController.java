@@ -0,0 +1,26 @@
+package com.project.ClothingEcommerceWebsite.controllers;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.CatalogChangesResponse;
+import com.project.ClothingEcommerceWebsite.services.impl.CatalogChangeLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("${api.prefix}/catalog")
+@RequiredArgsConstructor
+public class CatalogController {
+
+    private final CatalogChangeLog catalogChangeLog;
+
+    // Client lưu nextSince và gọi lại đến khi hasMore = false; reset = true thì tải lại toàn bộ catalog
+    @GetMapping("/changes")
+    public ResponseEntity<CatalogChangesResponse> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(catalogChangeLog.changesSince(since, limit));
+    }
+}
@@ -3,14 +3,20 @@ package com.project.ClothingEcommerceWebsite.controllers;
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateCategoryRequest;
 import com.project.ClothingEcommerceWebsite.models.Category;
 import com.project.ClothingEcommerceWebsite.services.CategoryService;
+import com.project.ClothingEcommerceWebsite.exception.NotFoundException;
+import com.project.ClothingEcommerceWebsite.services.impl.CategoryTree;
+import com.project.ClothingEcommerceWebsite.services.impl.SlugDirectory;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 
 @RestController
@@ -20,12 +26,46 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CategoryTree categoryTree;
+
+    @Autowired
+    private SlugDirectory slugDirectory;
+
+    @Value("${api.prefix}")
+    private String apiPrefix;
+
     @PostMapping("")
     public ResponseEntity<?> createCategory(@Valid @RequestBody CreateCategoryRequest categoryRequest) {
         Category category = categoryService.createCategory(categoryRequest);
         return ResponseEntity.ok(category);
     }
 
+    @GetMapping("/tree")
+    public ResponseEntity<?> getCategoryTree(@RequestParam(defaultValue = "true") boolean activeOnly) {
+        return ResponseEntity.ok(categoryTree.menu(activeOnly));
+    }
+
+    // Slug cũ trả 301 về slug hiện tại
+    @GetMapping("/slug/{slug}")
+    public ResponseEntity<?> getCategoryBySlug(@PathVariable String slug) {
+        SlugDirectory.Resolution resolution = slugDirectory.resolveCategory(slug)
+                .orElseThrow(() -> new NotFoundException("Category not found with slug: " + slug));
+        if (resolution.redirect()) {
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
+                    .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                            .path("/" + apiPrefix + "/categories/slug/{slug}")
+                            .buildAndExpand(resolution.canonicalSlug()).toUri())
+                    .build();
+        }
+        return ResponseEntity.ok(categoryService.getCategoryById(resolution.id()));
+    }
+
+    @GetMapping("/{id}/breadcrumbs")
+    public ResponseEntity<?> getBreadcrumbs(@PathVariable Long id) {
+        return ResponseEntity.ok(categoryTree.breadcrumbs(id));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getCategoryById(@PathVariable Long id) {
         Category category = categoryService.getCategoryById(id);
@@ -43,6 +83,11 @@ public class CategoryController {
         return ResponseEntity.ok(category);
     }
 
+    @PatchMapping("/{id}/active")
+    public ResponseEntity<?> setActive(@PathVariable Long id, @RequestParam boolean value) {
+        return ResponseEntity.ok(categoryService.setActive(id, value));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteCategory(@PathVariable Long id) {
         categoryService.deleteCategory(id);
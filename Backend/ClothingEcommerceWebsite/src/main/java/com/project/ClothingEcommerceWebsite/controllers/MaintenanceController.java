@@ -0,0 +1,23 @@
+package com.project.ClothingEcommerceWebsite.controllers;
+
+import com.project.ClothingEcommerceWebsite.services.impl.CartPurgeJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("${api.prefix}/maintenance")
+@RequiredArgsConstructor
+public class MaintenanceController {
+
+    private final CartPurgeJob cartPurgeJob;
+
+    @GetMapping("/cart-purge")
+    public ResponseEntity<Map<String, Object>> getCartPurgeStatus() {
+        return ResponseEntity.ok(cartPurgeJob.getStatus());
+    }
+}
@@ -1,20 +1,21 @@
 package com.project.ClothingEcommerceWebsite.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateOrderRequest;
 import com.project.ClothingEcommerceWebsite.models.Order;
 import com.project.ClothingEcommerceWebsite.services.OrderService;
+import com.project.ClothingEcommerceWebsite.utils.FieldSelection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("${api.prefix}/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/{userId}")
     public ResponseEntity<Order> createOrder(
@@ -24,18 +25,20 @@ public class OrderController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrder(id));
+    public ResponseEntity<?> getOrder(@PathVariable Long id,
+                                      @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, orderService.getOrder(id)));
     }
 
     @GetMapping("")
-    public ResponseEntity<List<Order>> getOrder() {
-        return ResponseEntity.ok(orderService.getAllOrder());
+    public ResponseEntity<?> getOrder(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, orderService.getAllOrder()));
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getUserOrders(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUser(userId));
+    public ResponseEntity<?> getUserOrders(@PathVariable Long userId,
+                                           @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, orderService.getOrdersByUser(userId)));
     }
 
     @PatchMapping("/{userId}/{orderId}/cancel")
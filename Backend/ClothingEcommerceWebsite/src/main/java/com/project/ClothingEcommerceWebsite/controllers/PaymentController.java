@@ -4,7 +4,6 @@ import com.project.ClothingEcommerceWebsite.services.OrderService;
 import com.project.ClothingEcommerceWebsite.services.VNPayService;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,9 +17,6 @@ public class PaymentController {
     private final VNPayService vnPayService;
     private final OrderService orderService;
 
-    @Value("${spring.vnpay.secret-key}")
-    private String vnpaySecretKey;
-
     @PostMapping("/create")
     public ResponseEntity<Map<String, String>> createPayment(@RequestParam Long amount, @RequestParam String orderId) throws Exception {
 
@@ -35,7 +31,7 @@ public class PaymentController {
         try {
             String secureHash = allParams.get("vnp_SecureHash");
 
-            boolean isValid = vnPayService.verifyPaymentCallback(allParams, vnpaySecretKey, secureHash);
+            boolean isValid = vnPayService.verifyPaymentCallback(allParams, secureHash);
             if (!isValid) {
                 ResponseEntity.status(400).body("Chữ ký không hợp lệ.");
             }
@@ -1,17 +1,40 @@
 package com.project.ClothingEcommerceWebsite.controllers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateProductVariantRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.AvailabilityResponse;
 import com.project.ClothingEcommerceWebsite.dtos.respond.ProductDetailResponse;
 import com.project.ClothingEcommerceWebsite.dtos.respond.ProductListResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductRankingResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.RelatedProductResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.SimilarProductResponse;
+import com.project.ClothingEcommerceWebsite.exception.NotFoundException;
 import com.project.ClothingEcommerceWebsite.models.Product;
 import com.project.ClothingEcommerceWebsite.models.ProductImage;
 import com.project.ClothingEcommerceWebsite.services.ProductImageService;
 import com.project.ClothingEcommerceWebsite.services.ProductService;
+import com.project.ClothingEcommerceWebsite.services.impl.CoPurchaseIndex;
+import com.project.ClothingEcommerceWebsite.services.impl.ProductAvailabilityIndex;
+import com.project.ClothingEcommerceWebsite.services.impl.ProductDetailCache;
+import com.project.ClothingEcommerceWebsite.services.impl.SalesRankingEngine;
+import com.project.ClothingEcommerceWebsite.services.impl.SimilarProductIndex;
+import com.project.ClothingEcommerceWebsite.services.impl.SlugDirectory;
+import com.project.ClothingEcommerceWebsite.utils.FieldSelection;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
 
 import java.util.List;
 import java.util.Map;
@@ -24,6 +47,18 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductImageService productImageService;
+    private final SalesRankingEngine salesRankingEngine;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final SimilarProductIndex similarProductIndex;
+    private final SlugDirectory slugDirectory;
+    private final ProductDetailCache productDetailCache;
+    private final ProductAvailabilityIndex availabilityIndex;
+    private final ObjectMapper objectMapper;
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Value("${api.prefix}")
+    private String apiPrefix;
 
     @PostMapping("")
     public ResponseEntity<?> createProduct(@RequestBody CreateProductVariantRequest request) {
@@ -64,28 +99,170 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDetailResponse>> searchByName(
-            @RequestParam String name) {
-        return ResponseEntity.ok(productService.searchByName(name));
+    public ResponseEntity<?> searchByName(
+            @RequestParam String name,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, productService.searchByName(name, categoryId)));
     }
 
     @GetMapping("")
-    public ResponseEntity<List<ProductListResponse>> getAllProduct(
+    public ResponseEntity<?> getAllProduct(
             @RequestParam("current") Optional<String> currentOptional,
-            @RequestParam("pageSize") Optional<String> pageSizeOptional
+            @RequestParam("pageSize") Optional<String> pageSizeOptional,
+            @RequestParam("sort") Optional<String> sortOptional,
+            @RequestParam("categoryId") Optional<Long> categoryIdOptional,
+            @RequestParam("fields") Optional<String> fieldsOptional
     ) {
         String sCurrent = currentOptional.isPresent() ? currentOptional.get() : "";
         String sPageSize = pageSizeOptional.isPresent() ? pageSizeOptional.get() : "";
         int current = Integer.parseInt(sCurrent);
         int pageSize = Integer.parseInt(sPageSize);
         Pageable pageable = PageRequest.of(current - 1, pageSize);
-        return ResponseEntity.ok(productService.getAllProduct(pageable));
+        Long categoryId = categoryIdOptional.orElse(null);
+        FieldSelection fields = FieldSelection.parse(fieldsOptional.orElse(null));
+        List<ProductListResponse> products = sortOptional.isPresent() && sortOptional.get().equals("rating")
+                ? productService.getAllProductByRating(categoryId, pageable, fields)
+                : productService.getAllProduct(categoryId, pageable, fields);
+        return ResponseEntity.ok(fields.apply(objectMapper, products));
+    }
+
+    @GetMapping("/bestsellers")
+    public ResponseEntity<List<ProductRankingResponse>> getBestsellers(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(salesRankingEngine.bestsellers(SalesRankingEngine.Window.parse(window), categoryId, limit));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<ProductRankingResponse>> getTrending(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(salesRankingEngine.trending(categoryId, limit));
+    }
+
+    @GetMapping("/{id}/top-variants")
+    public ResponseEntity<List<ProductRankingResponse>> getTopVariants(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "week") String window,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(salesRankingEngine.topVariants(id, SalesRankingEngine.Window.parse(window), limit));
+    }
+
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedProductResponse>> getRelatedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(coPurchaseIndex.related(id, limit));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SimilarProductResponse>> getSimilarProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(similarProductIndex.similar(id, limit));
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<AvailabilityResponse> getAvailability(@PathVariable Long id) {
+        return ResponseEntity.ok(availabilityIndex.get(id));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<?> getProductsByIds(@RequestParam List<Long> ids,
+                                              @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, productService.getProductsByIds(ids)));
+    }
+
+    // Slug cũ trả 301 về slug hiện tại
+    @GetMapping("/slug/{slug}")
+    public ResponseEntity<?> getProductBySlug(
+            @PathVariable String slug,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean withVariants,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        SlugDirectory.Resolution resolution = slugDirectory.resolveProduct(slug)
+                .orElseThrow(() -> new NotFoundException("Product not found with slug: " + slug));
+        if (resolution.redirect()) {
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
+                    .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                            .path("/" + apiPrefix + "/products/slug/{slug}")
+                            .buildAndExpand(resolution.canonicalSlug()).toUri())
+                    .build();
+        }
+        return renderDetail(resolution.id(), withVariants, FieldSelection.parse(fields), ifNoneMatch, accept);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
-        ProductDetailResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<?> getProductById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean withVariants,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return renderDetail(id, withVariants, FieldSelection.parse(fields), ifNoneMatch, accept);
+    }
+
+    // JSON render sẵn từ cache; client gửi lại ETag còn khớp thì trả 304 không kèm body.
+    // Có fields thì lọc từ bản cache, không gắn ETag vì body khác bản đầy đủ.
+    // Client yêu cầu CBOR/Smile thì chuyển mã từ bản cache, ETag riêng cho từng định dạng.
+    // Mặc định chỉ trả ma trận availability; danh sách variants/inventories đầy đủ chỉ khi withVariants=true
+    private ResponseEntity<?> renderDetail(Long id, boolean withVariants, FieldSelection fields, String ifNoneMatch, String accept) {
+        ProductDetailCache.Rendered rendered = productDetailCache.get(id, withVariants,
+                () -> productService.getProductById(id, withVariants));
+        if (!fields.includesAll()) {
+            return ResponseEntity.ok(fields.apply(readDetail(rendered)));
+        }
+        MediaType binaryType = binaryTypeOf(accept);
+        String etag = binaryType == null ? rendered.etag()
+                : rendered.etag().substring(0, rendered.etag().length() - 1) + "-" + binaryType.getSubtype() + "\"";
+        if (ProductDetailCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .cacheControl(CacheControl.noCache());
+        if (binaryType != null) {
+            return response.contentType(binaryType).body(readDetail(rendered));
+        }
+        return response.contentType(MediaType.APPLICATION_JSON).body(rendered.body());
+    }
+
+    private JsonNode readDetail(ProductDetailCache.Rendered rendered) {
+        try {
+            return objectMapper.readTree(rendered.body());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read product detail: " + e.getMessage());
+        }
+    }
+
+    // Chỉ trả nhị phân khi client ghi rõ CBOR/Smile với độ ưu tiên cao hơn JSON; */* vẫn nhận JSON
+    private static MediaType binaryTypeOf(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        List<MediaType> acceptTypes;
+        try {
+            acceptTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType best = null;
+        double bestQuality = 0;
+        double jsonQuality = 0;
+        for (MediaType type : acceptTypes) {
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                jsonQuality = Math.max(jsonQuality, type.getQualityValue());
+            } else if ((type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR) || type.equalsTypeAndSubtype(SMILE))
+                    && type.getQualityValue() > bestQuality) {
+                best = type.removeQualityValue();
+                bestQuality = type.getQualityValue();
+            }
+        }
+        return best != null && bestQuality > jsonQuality ? best : null;
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,23 @@
+package com.project.ClothingEcommerceWebsite.controllers;
+
+import com.project.ClothingEcommerceWebsite.utils.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("${api.prefix}/rate-limits")
+@RequiredArgsConstructor
+public class RateLimitController {
+
+    private final RateLimiter rateLimiter;
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getStats() {
+        return ResponseEntity.ok(rateLimiter.getStats());
+    }
+}
@@ -1,21 +1,24 @@
 package com.project.ClothingEcommerceWebsite.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.project.ClothingEcommerceWebsite.dtos.request.*;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ReviewPageResponse;
 import com.project.ClothingEcommerceWebsite.models.Review;
 import com.project.ClothingEcommerceWebsite.services.ReviewService;
+import com.project.ClothingEcommerceWebsite.utils.FieldSelection;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("${api.prefix}/reviews")
 @RequiredArgsConstructor
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("")
     public ResponseEntity<Review> create(@Valid @RequestBody CreateReviewRequest req) {
@@ -37,12 +40,32 @@ public class ReviewController {
     }
 
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<Review>> listByProduct(@PathVariable Long productId) {
-        return ResponseEntity.ok(reviewService.getReviewByProduct(productId));
+    public ResponseEntity<?> listByProduct(@PathVariable Long productId,
+                                           @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, reviewService.getReviewByProduct(productId)));
+    }
+
+    @GetMapping("/product/{productId}/page")
+    public ResponseEntity<?> pageByProduct(
+            @PathVariable Long productId,
+            @RequestParam(required = false) Integer rating,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
+        ReviewPageResponse page = reviewService.getReviewPageByProduct(productId, rating, cursor, size);
+        FieldSelection selection = FieldSelection.parse(fields);
+        if (selection.includesAll()) {
+            return ResponseEntity.ok(page);
+        }
+        // Lọc trường trên từng review, giữ nguyên thông tin phân trang
+        ObjectNode body = objectMapper.valueToTree(page);
+        selection.apply(body.get("items"));
+        return ResponseEntity.ok(body);
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Review>> listByUser(@PathVariable Long userId) {
-        return ResponseEntity.ok(reviewService.getReviewByUser(userId));
+    public ResponseEntity<?> listByUser(@PathVariable Long userId,
+                                        @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(FieldSelection.parse(fields).apply(objectMapper, reviewService.getReviewByUser(userId)));
     }
 }
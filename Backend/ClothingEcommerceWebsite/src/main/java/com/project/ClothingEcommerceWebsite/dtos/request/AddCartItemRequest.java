@@ -0,0 +1,18 @@
+package com.project.ClothingEcommerceWebsite.dtos.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AddCartItemRequest {
+    @NotNull
+    private Long variantId;
+
+    @NotNull @Min(1)
+    private Integer quantity;
+}
@@ -0,0 +1,20 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailabilityResponse {
+    // Size theo sortOrder, màu theo id
+    private List<SizeResponse> sizes;
+    private List<ColorResponse> colors;
+    // Ma trận phẳng theo hàng: ô (size i, màu j) ở vị trí i * colors.size() + j; -1 khi không có biến thể
+    private int[] stock;
+    // Cùng vị trí với stock, 0 khi không có biến thể
+    private long[] variantIds;
+}
@@ -1,8 +1,25 @@
 package com.project.ClothingEcommerceWebsite.dtos.respond;
 
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
 public class CartItemResponse {
     private Long id;
+    private Long variantId;
+    private Long productId;
     private String productName;
+    private String productSlug;
+    private String imageUrl;
+    private String sizeName;
+    private String colorName;
+    private String colorCode;
     private int quantity;
     private Double price;
+    private int stock;
+    private boolean inStock;
+    private Double lineTotal;
 }
@@ -1,6 +1,7 @@
 package com.project.ClothingEcommerceWebsite.dtos.respond;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,7 +10,10 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@Builder
 public class CartResponse {
     private Long id;
     private List<CartItemResponse> items;
+    private int totalItems;
+    private Double subtotal;
 }
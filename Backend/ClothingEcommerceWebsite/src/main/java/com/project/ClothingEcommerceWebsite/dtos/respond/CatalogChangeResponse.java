@@ -0,0 +1,17 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogChangeResponse {
+    private long seq;
+    private Enums.CatalogEntity type;
+    // Với INVENTORY là id của variant, khớp GET /inventories/{variantId}
+    private Long id;
+    private Enums.ChangeOp op;
+}
@@ -0,0 +1,20 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogChangesResponse {
+    // Mỗi đối tượng chỉ giữ thay đổi mới nhất trong trang
+    private List<CatalogChangeResponse> changes;
+    // Truyền lại qua tham số since ở lần gọi sau
+    private long nextSince;
+    private boolean hasMore;
+    // true khi since đã quá cũ (nhật ký đã bị dọn), client cần tải lại toàn bộ catalog rồi đồng bộ từ nextSince
+    private boolean reset;
+}
@@ -0,0 +1,16 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryCascadeResponse {
+    private Long categoryId;
+    private Boolean isActive;
+    // Số danh mục (gồm cả danh mục gốc) và sản phẩm thực sự đổi trạng thái
+    private int categoriesUpdated;
+    private int productsUpdated;
+}
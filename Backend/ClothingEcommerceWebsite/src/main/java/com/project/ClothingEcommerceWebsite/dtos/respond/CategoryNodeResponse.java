@@ -0,0 +1,19 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryNodeResponse {
+    private Long id;
+    private String name;
+    private String slug;
+    private Boolean isActive;
+    // Null trong breadcrumb, danh sách con trong menu
+    private List<CategoryNodeResponse> children;
+}
@@ -1,5 +1,6 @@
 package com.project.ClothingEcommerceWebsite.dtos.respond;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.project.ClothingEcommerceWebsite.models.*;
 import lombok.*;
 
@@ -23,9 +24,14 @@ public class ProductDetailResponse {
     private Set<SizeResponse> sizes;
     private Set<ColorResponse> colors;
     private List<ProductImageResponse> images;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<ProductVariant> variants;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Inventory> inventories;
     private List<ReviewResponse> reviews;
+    private RatingSummaryResponse rating;
+    private List<CategoryNodeResponse> breadcrumbs;
+    private AvailabilityResponse availability;
 
 }
 
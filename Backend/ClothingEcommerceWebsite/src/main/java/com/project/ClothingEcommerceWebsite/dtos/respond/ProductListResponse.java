@@ -21,4 +21,5 @@ public class ProductListResponse {
     private Category category;
     private List<ProductImageResponse> images;
     private int totalStock;
+    private RatingSummaryResponse rating;
 }
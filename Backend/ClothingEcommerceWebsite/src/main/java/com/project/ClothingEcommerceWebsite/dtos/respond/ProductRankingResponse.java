@@ -0,0 +1,16 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRankingResponse {
+    private Long id;
+    private Long categoryId;
+    // Số lượng bán trong cửa sổ được hỏi
+    private long sold;
+    private double score;
+}
@@ -0,0 +1,17 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RatingSummaryResponse {
+    private double averageRating;
+    private int reviewCount;
+    // Số review theo số sao, key từ 1 đến 5
+    private Map<Integer, Integer> histogram;
+}
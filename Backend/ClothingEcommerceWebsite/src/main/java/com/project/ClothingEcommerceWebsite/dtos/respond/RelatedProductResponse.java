@@ -0,0 +1,14 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RelatedProductResponse {
+    private Long id;
+    // Số đơn hàng mua cùng (với giỏ hàng là tổng theo các sản phẩm trong giỏ)
+    private long score;
+}
@@ -0,0 +1,16 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewPageResponse {
+    private List<ReviewResponse> items;
+    // Truyền lại qua tham số cursor để lấy trang tiếp theo, null khi đã hết
+    private String nextCursor;
+}
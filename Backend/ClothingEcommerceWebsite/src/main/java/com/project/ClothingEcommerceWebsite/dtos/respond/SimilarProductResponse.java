@@ -0,0 +1,14 @@
+package com.project.ClothingEcommerceWebsite.dtos.respond;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimilarProductResponse {
+    private Long id;
+    // Độ tương đồng cosine, trong khoảng (0, 1]
+    private double score;
+}
@@ -1,6 +1,7 @@
 package com.project.ClothingEcommerceWebsite.exception;
 
 import com.project.ClothingEcommerceWebsite.dtos.respond.ResponseObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,6 +37,16 @@ public class GlobalExceptionHandler {
                         .build());
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ResponseObject> handleServiceUnavailable(ServiceUnavailableException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(ResponseObject.builder()
+                        .status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .message(exception.getMessage())
+                        .build());
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<?> handleBadRequest(BadRequestException exception) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
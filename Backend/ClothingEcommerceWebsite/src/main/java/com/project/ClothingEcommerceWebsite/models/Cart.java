@@ -5,6 +5,7 @@ import jakarta.persistence.Table;
 import lombok.*;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -24,6 +25,10 @@ public class Cart {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Lần cuối giỏ hàng được thay đổi, cập nhật theo lô bởi CartActivityTracker
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> cartItems;
 }
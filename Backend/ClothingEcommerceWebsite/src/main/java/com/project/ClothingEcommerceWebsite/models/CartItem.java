@@ -7,7 +7,8 @@ import lombok.*;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"cart_id", "variant_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,4 +34,10 @@ public class CartItem {
 
     @Column(nullable = false)
     private Integer quantity;
+
+    // unitPrice chỉ là giá lúc thêm vào giỏ, giỏ hàng và đơn hàng luôn tính theo giá hiện tại của variant
+    public Double currentPrice() {
+        Double price = variant != null ? variant.getPrice() : null;
+        return price != null ? price : unitPrice;
+    }
 }
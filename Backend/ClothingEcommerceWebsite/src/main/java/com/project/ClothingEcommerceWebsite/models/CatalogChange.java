@@ -0,0 +1,35 @@
+package com.project.ClothingEcommerceWebsite.models;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Nhật ký thay đổi catalog, id tự tăng là số thứ tự để client đồng bộ tăng dần (GET /catalog/changes?since=)
+@Entity
+@Table(name = "catalog_changes")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private Enums.CatalogEntity entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "op", nullable = false, length = 10)
+    private Enums.ChangeOp op;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
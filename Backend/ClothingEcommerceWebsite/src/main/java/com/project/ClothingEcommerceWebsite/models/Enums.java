@@ -12,4 +12,16 @@ public class Enums {
     public enum PaymentStatus {
         UNPAID, PAID, REFUNDED, PARTIAL
     }
+
+    public enum SlugType {
+        PRODUCT, CATEGORY
+    }
+
+    public enum CatalogEntity {
+        PRODUCT, INVENTORY, CATEGORY, COLOR, SIZE
+    }
+
+    public enum ChangeOp {
+        UPSERT, DELETE
+    }
 }
@@ -0,0 +1,44 @@
+package com.project.ClothingEcommerceWebsite.models;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+
+// Tổng hợp đánh giá của một sản phẩm, được cập nhật cộng dồn mỗi khi review thay đổi
+@Entity
+@Table(name = "product_rating_summaries",
+        indexes = @Index(name = "idx_rating_summary_average", columnList = "average_rating, review_count"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRatingSummary {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "review_count", nullable = false)
+    private Integer reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "average_rating", nullable = false)
+    private Double averageRating;
+
+    @Column(name = "star_1", nullable = false)
+    private Integer star1;
+
+    @Column(name = "star_2", nullable = false)
+    private Integer star2;
+
+    @Column(name = "star_3", nullable = false)
+    private Integer star3;
+
+    @Column(name = "star_4", nullable = false)
+    private Integer star4;
+
+    @Column(name = "star_5", nullable = false)
+    private Integer star5;
+}
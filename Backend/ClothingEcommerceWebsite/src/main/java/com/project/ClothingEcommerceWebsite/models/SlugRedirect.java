@@ -0,0 +1,30 @@
+package com.project.ClothingEcommerceWebsite.models;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+
+// Slug cũ của sản phẩm/danh mục, trả về 301 tới slug hiện tại để link cũ không bị hỏng
+@Entity
+@Table(name = "slug_redirects",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"slug_type", "old_slug"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlugRedirect {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "slug_type", nullable = false, length = 20)
+    private Enums.SlugType slugType;
+
+    @Column(name = "old_slug", nullable = false, length = 280)
+    private String oldSlug;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+}
@@ -2,12 +2,67 @@ package com.project.ClothingEcommerceWebsite.repositories;
 
 import com.project.ClothingEcommerceWebsite.models.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByCartId(Long cartId);
     void deleteByCartId(Long cartId);
     void deleteAllByVariantId(Long variantId);
     List<CartItem> findByVariantId(Long variantId);
+    Optional<CartItem> findByCartIdAndVariantId(Long cartId, Long variantId);
+    List<CartItem> findByCartIdAndVariantIdIn(Long cartId, Collection<Long> variantIds);
+
+    @Query("SELECT ci.id AS id, v.id AS variantId, p.id AS productId, p.name AS productName, " +
+            "p.slug AS productSlug, s.name AS sizeName, c.name AS colorName, c.code AS colorCode, " +
+            "v.price AS price, ci.quantity AS quantity " +
+            "FROM CartItem ci JOIN ci.variant v JOIN v.product p LEFT JOIN v.size s LEFT JOIN v.color c " +
+            "WHERE ci.cart.id = :cartId ORDER BY ci.id")
+    List<CartLineView> findCartLines(@Param("cartId") Long cartId);
+
+    // Dựa vào unique key (cart_id, variant_id) tạo trong db/migration_performance.sql: tăng số lượng nguyên tử, không cần đọc trước
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO cart_items (cart_id, variant_id, unit_price, quantity) " +
+            "VALUES (:cartId, :variantId, :unitPrice, :quantity) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Long cartId,
+                       @Param("variantId") Long variantId,
+                       @Param("unitPrice") Double unitPrice,
+                       @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity WHERE ci.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.id = :id")
+    int deleteItemById(@Param("id") Long id);
+
+    // Kiểm tra lại updated_at ngay trong câu DELETE để bỏ qua cart vừa hoạt động trở lại
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_id IN (:cartIds) " +
+            "AND cart_id IN (SELECT c.id FROM carts c WHERE c.updated_at < :cutoff) LIMIT :limit",
+            nativeQuery = true)
+    int deleteIdleItems(@Param("cartIds") Collection<Long> cartIds,
+                        @Param("cutoff") LocalDateTime cutoff,
+                        @Param("limit") int limit);
+
+    interface CartLineView {
+        Long getId();
+        Long getVariantId();
+        Long getProductId();
+        String getProductName();
+        String getProductSlug();
+        String getSizeName();
+        String getColorName();
+        String getColorCode();
+        Double getPrice();
+        Integer getQuantity();
+    }
 }
@@ -2,10 +2,35 @@ package com.project.ClothingEcommerceWebsite.repositories;
 
 import com.project.ClothingEcommerceWebsite.models.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
     void deleteByUserId(Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = :at WHERE c.id IN :ids")
+    int touchAll(@Param("ids") Collection<Long> ids, @Param("at") LocalDateTime at);
+
+    // Cart cũ chưa có updated_at được tính là hoạt động từ lúc backfill, tránh bị xóa ngay
+    @Modifying
+    @Query(value = "UPDATE carts SET updated_at = :at WHERE updated_at IS NULL LIMIT :limit", nativeQuery = true)
+    int backfillUpdatedAt(@Param("at") LocalDateTime at, @Param("limit") int limit);
+
+    @Query(value = "SELECT c.id FROM carts c WHERE c.updated_at < :cutoff AND c.id > :afterId " +
+            "AND EXISTS (SELECT 1 FROM cart_items ci WHERE ci.cart_id = c.id) ORDER BY c.id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findIdleCartIds(@Param("cutoff") LocalDateTime cutoff,
+                               @Param("afterId") Long afterId,
+                               @Param("limit") int limit);
 }
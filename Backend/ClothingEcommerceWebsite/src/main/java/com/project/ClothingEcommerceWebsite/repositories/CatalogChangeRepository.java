@@ -0,0 +1,39 @@
+package com.project.ClothingEcommerceWebsite.repositories;
+
+import com.project.ClothingEcommerceWebsite.models.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    @Query("SELECT c FROM CatalogChange c WHERE c.id > :since AND c.id <= :upTo ORDER BY c.id")
+    List<CatalogChange> findRange(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    @Query("SELECT MAX(c.id) FROM CatalogChange c")
+    Long findMaxId();
+
+    @Query("SELECT MIN(c.id) FROM CatalogChange c")
+    Long findMinId();
+
+    @Query("SELECT MAX(c.id) FROM CatalogChange c WHERE c.changedAt < :cutoff")
+    Long findMaxIdBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Bật/tắt danh mục cập nhật cả cây con bằng một câu UPDATE, ghi thay đổi cho cả cây cũng bằng một câu
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO catalog_changes (entity_type, entity_id, op, changed_at) " +
+            CategoryRepository.SUBTREE_CTE + "SELECT 'CATEGORY', s.id, 'UPSERT', NOW() FROM subtree s " +
+            "UNION ALL SELECT 'PRODUCT', p.id, 'UPSERT', NOW() FROM products p JOIN subtree s ON s.id = p.category_id",
+            nativeQuery = true)
+    int insertUpsertsForCategorySubtree(@Param("rootId") Long rootId);
+
+    // Xóa theo lô có LIMIT để không giữ lock lâu
+    @Modifying
+    @Query(value = "DELETE FROM catalog_changes WHERE id <= :maxId LIMIT :limit", nativeQuery = true)
+    int deleteUpTo(@Param("maxId") long maxId, @Param("limit") int limit);
+}
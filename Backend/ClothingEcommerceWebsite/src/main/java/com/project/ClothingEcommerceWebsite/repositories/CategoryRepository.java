@@ -4,15 +4,40 @@ import com.project.ClothingEcommerceWebsite.models.Category;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    // Danh mục :rootId và mọi danh mục con cháu; UNION (không ALL) để dừng nếu parent_id bị vòng
+    String SUBTREE_CTE = "WITH RECURSIVE subtree (id) AS (" +
+            "SELECT id FROM categories WHERE id = :rootId " +
+            "UNION SELECT c.id FROM categories c JOIN subtree s ON c.parent_id = s.id) ";
+
     boolean existsByName(String name);
     boolean existsByNameAndIdNot(String name, Long id);
     boolean existsBySlug(String slug);
     Optional<Category> findBySlug(String slug);
     boolean existsByParentIdId(Long parentId);
     List<Category> findByParentIdId(Long parentId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = SUBTREE_CTE + "UPDATE categories c JOIN subtree s ON s.id = c.id " +
+            "SET c.is_active = :active WHERE c.is_active <> :active", nativeQuery = true)
+    int updateActiveInSubtree(@Param("rootId") Long rootId, @Param("active") boolean active);
+
+    @Query("SELECT c.id AS id, p.id AS parentId, c.name AS name, c.slug AS slug, c.isActive AS isActive " +
+            "FROM Category c LEFT JOIN c.parentId p ORDER BY c.id")
+    List<CategoryNodeView> findAllNodes();
+
+    interface CategoryNodeView {
+        Long getId();
+        Long getParentId();
+        String getName();
+        String getSlug();
+        Boolean getIsActive();
+    }
 }
@@ -2,8 +2,12 @@ package com.project.ClothingEcommerceWebsite.repositories;
 
 import com.project.ClothingEcommerceWebsite.models.Inventory;
 import com.project.ClothingEcommerceWebsite.models.ProductVariant;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +16,17 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     List<Inventory> findAllByProductVariant_Product_Id(Long productId);
     void deleteAllByProductVariant_Product_Id(Long productId);
     List<Inventory> findAllByProductVariant_Product_IdIn(List<Long> productIds);
+
+    @EntityGraph(attributePaths = {"productVariant", "productVariant.size", "productVariant.color"})
+    @Query("SELECT i FROM Inventory i WHERE i.productVariant.product.id = :productId")
+    List<Inventory> findDetailByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT i.productVariant.id AS variantId, i.quantity AS quantity " +
+            "FROM Inventory i WHERE i.productVariant.id IN :variantIds")
+    List<VariantStockView> findStockByVariantIdIn(@Param("variantIds") Collection<Long> variantIds);
+
+    interface VariantStockView {
+        Long getVariantId();
+        Integer getQuantity();
+    }
 }
@@ -1,8 +1,12 @@
 package com.project.ClothingEcommerceWebsite.repositories;
 
+import com.project.ClothingEcommerceWebsite.models.Enums;
 import com.project.ClothingEcommerceWebsite.models.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -10,4 +14,37 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     boolean existsByProductId(Long productId);
     boolean existsByVariantId(Long variantId);
     List<Long> findVariantIdsByProductId(Long productId);
+
+    @Query("SELECT o.id AS orderId, oi.product.id AS productId, oi.variant.id AS variantId, p.category.id AS categoryId, " +
+            "oi.quantity AS quantity, o.createdAt AS createdAt " +
+            "FROM OrderItem oi JOIN oi.order o JOIN oi.product p " +
+            "WHERE o.createdAt >= :since AND o.status <> :excluded")
+    List<SaleView> findSalesSince(@Param("since") LocalDateTime since,
+                                  @Param("excluded") Enums.OrderStatus excluded);
+
+    // Sắp theo order id để gom các dòng của cùng một đơn liền nhau
+    @Query("SELECT o.id AS orderId, oi.product.id AS productId " +
+            "FROM OrderItem oi JOIN oi.order o " +
+            "WHERE o.id > :fromId AND o.id <= :toId AND o.status <> :excluded " +
+            "ORDER BY o.id")
+    List<OrderProductView> findOrderProductsInRange(@Param("fromId") long fromId,
+                                                    @Param("toId") long toId,
+                                                    @Param("excluded") Enums.OrderStatus excluded);
+
+    @Query("SELECT MAX(oi.order.id) FROM OrderItem oi")
+    Long findMaxOrderId();
+
+    interface OrderProductView {
+        long getOrderId();
+        long getProductId();
+    }
+
+    interface SaleView {
+        Long getOrderId();
+        Long getProductId();
+        Long getVariantId();
+        Long getCategoryId();
+        Integer getQuantity();
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -2,11 +2,26 @@ package com.project.ClothingEcommerceWebsite.repositories;
 
 import com.project.ClothingEcommerceWebsite.models.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     List<ProductImage> findAllByProductId(Long productId);
     void deleteAllByProductId(Long productId);
     List<ProductImage> findAllByProductIdIn(List<Long> productIds);
+
+    // Không nạp entity Product (EAGER) kèm theo từng ảnh
+    @Query("SELECT pi.id AS id, pi.product.id AS productId, pi.imageUrl AS imageUrl, pi.position AS position " +
+            "FROM ProductImage pi WHERE pi.product.id IN :productIds ORDER BY pi.product.id, pi.position")
+    List<ProductImageView> findImageViewsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    interface ProductImageView {
+        Long getId();
+        Long getProductId();
+        String getImageUrl();
+        Integer getPosition();
+    }
 }
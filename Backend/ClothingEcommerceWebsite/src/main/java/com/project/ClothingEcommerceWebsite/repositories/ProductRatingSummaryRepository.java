@@ -0,0 +1,58 @@
+package com.project.ClothingEcommerceWebsite.repositories;
+
+import com.project.ClothingEcommerceWebsite.models.ProductRatingSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRatingSummaryRepository extends JpaRepository<ProductRatingSummary, Long> {
+    List<ProductRatingSummary> findAllByProductIdIn(Collection<Long> productIds);
+
+    // Cộng dồn nguyên tử; MySQL gán lần lượt từ trái sang nên average dùng count/sum đã cập nhật
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_summaries " +
+            "(product_id, review_count, rating_sum, average_rating, star_1, star_2, star_3, star_4, star_5) " +
+            "VALUES (:productId, GREATEST(:count, 0), GREATEST(:sum, 0), " +
+            "IF(:count > 0, :sum / :count, 0), GREATEST(:s1, 0), GREATEST(:s2, 0), GREATEST(:s3, 0), " +
+            "GREATEST(:s4, 0), GREATEST(:s5, 0)) " +
+            "ON DUPLICATE KEY UPDATE review_count = review_count + :count, rating_sum = rating_sum + :sum, " +
+            "average_rating = IF(review_count > 0, rating_sum / review_count, 0), " +
+            "star_1 = star_1 + :s1, star_2 = star_2 + :s2, star_3 = star_3 + :s3, " +
+            "star_4 = star_4 + :s4, star_5 = star_5 + :s5", nativeQuery = true)
+    int applyDelta(@Param("productId") Long productId,
+                   @Param("count") int count,
+                   @Param("sum") int sum,
+                   @Param("s1") int s1,
+                   @Param("s2") int s2,
+                   @Param("s3") int s3,
+                   @Param("s4") int s4,
+                   @Param("s5") int s5);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_rating_summaries WHERE product_id IN (:productIds)", nativeQuery = true)
+    int deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_summaries " +
+            "(product_id, review_count, rating_sum, average_rating, star_1, star_2, star_3, star_4, star_5) " +
+            "SELECT product_id, COUNT(*), SUM(rating), AVG(rating), SUM(rating = 1), SUM(rating = 2), " +
+            "SUM(rating = 3), SUM(rating = 4), SUM(rating = 5) " +
+            "FROM reviews WHERE product_id IN (:productIds) GROUP BY product_id", nativeQuery = true)
+    int insertFromReviews(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_rating_summaries", nativeQuery = true)
+    int deleteAllSummaries();
+
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_summaries " +
+            "(product_id, review_count, rating_sum, average_rating, star_1, star_2, star_3, star_4, star_5) " +
+            "SELECT product_id, COUNT(*), SUM(rating), AVG(rating), SUM(rating = 1), SUM(rating = 2), " +
+            "SUM(rating = 3), SUM(rating = 4), SUM(rating = 5) " +
+            "FROM reviews GROUP BY product_id", nativeQuery = true)
+    int insertAllFromReviews();
+}
@@ -1,10 +1,16 @@
 package com.project.ClothingEcommerceWebsite.repositories;
 
 import com.project.ClothingEcommerceWebsite.models.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
@@ -14,4 +20,61 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     boolean existsByName(String name);
     List<Product> findByCategoryId(Long categoryId);
     void deleteByCategoryId(Long categoryId);
+    Page<Product> findByCategoryIdIn(Collection<Long> categoryIds, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = CategoryRepository.SUBTREE_CTE + "UPDATE products p JOIN subtree s ON s.id = p.category_id " +
+            "SET p.is_published = :published WHERE p.is_published <> :published", nativeQuery = true)
+    int updatePublishedInCategorySubtree(@Param("rootId") Long rootId, @Param("published") boolean published);
+
+    // Danh sách rút gọn cho fields=: không đọc cột description (MEDIUMTEXT) và không nạp entity Category
+    @Query(value = "SELECT p.id AS id, p.sku AS sku, p.name AS name, p.slug AS slug, p.basePrice AS basePrice, " +
+            "p.isPublished AS isPublished, c.id AS categoryId FROM Product p LEFT JOIN p.category c " +
+            "WHERE (:allCategories = true OR c.id IN :categoryIds)",
+            countQuery = "SELECT COUNT(p) FROM Product p LEFT JOIN p.category c " +
+                    "WHERE (:allCategories = true OR c.id IN :categoryIds)")
+    Page<ProductSummaryView> findSummaries(@Param("allCategories") boolean allCategories,
+                                           @Param("categoryIds") Collection<Long> categoryIds,
+                                           Pageable pageable);
+
+    @Query(value = "SELECT p.id AS id, p.sku AS sku, p.name AS name, p.slug AS slug, p.basePrice AS basePrice, " +
+            "p.isPublished AS isPublished, c.id AS categoryId FROM Product p LEFT JOIN p.category c " +
+            "LEFT JOIN ProductRatingSummary s ON s.productId = p.id " +
+            "WHERE (:allCategories = true OR c.id IN :categoryIds) " +
+            "ORDER BY COALESCE(s.averageRating, 0) DESC, COALESCE(s.reviewCount, 0) DESC, p.id DESC",
+            countQuery = "SELECT COUNT(p) FROM Product p LEFT JOIN p.category c " +
+                    "WHERE (:allCategories = true OR c.id IN :categoryIds)")
+    Page<ProductSummaryView> findSummariesOrderByRating(@Param("allCategories") boolean allCategories,
+                                                        @Param("categoryIds") Collection<Long> categoryIds,
+                                                        Pageable pageable);
+
+    interface ProductSummaryView {
+        Long getId();
+        String getSku();
+        String getName();
+        String getSlug();
+        Double getBasePrice();
+        Boolean getIsPublished();
+        Long getCategoryId();
+    }
+
+    @Query("SELECT p.id AS id, p.slug AS slug FROM Product p")
+    List<SlugView> findAllSlugs();
+
+    interface SlugView {
+        Long getId();
+        String getSlug();
+    }
+
+    // Sắp theo điểm trung bình rồi số lượt đánh giá, sản phẩm chưa có review xếp cuối
+    @Query(value = "SELECT p FROM Product p LEFT JOIN ProductRatingSummary s ON s.productId = p.id " +
+            "ORDER BY COALESCE(s.averageRating, 0) DESC, COALESCE(s.reviewCount, 0) DESC, p.id DESC",
+            countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<Product> findAllOrderByRating(Pageable pageable);
+
+    @Query(value = "SELECT p FROM Product p LEFT JOIN ProductRatingSummary s ON s.productId = p.id " +
+            "WHERE p.category.id IN :categoryIds " +
+            "ORDER BY COALESCE(s.averageRating, 0) DESC, COALESCE(s.reviewCount, 0) DESC, p.id DESC",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id IN :categoryIds")
+    Page<Product> findByCategoryIdsOrderByRating(@Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
 }
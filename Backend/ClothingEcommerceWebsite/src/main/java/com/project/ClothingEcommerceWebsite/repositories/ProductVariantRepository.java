@@ -1,7 +1,10 @@
 package com.project.ClothingEcommerceWebsite.repositories;
 
 import com.project.ClothingEcommerceWebsite.models.ProductVariant;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -11,4 +14,9 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
     boolean existsByColorId(Long colorId);
     List<ProductVariant> findAllByProductId(Long id);
     List<ProductVariant> findAllByProductIdIn(List<Long> productIds);
+
+    // Nạp sẵn size/color để dùng được sau khi transaction đã đóng (đường đọc song song của trang chi tiết)
+    @EntityGraph(attributePaths = {"size", "color"})
+    @Query("SELECT v FROM ProductVariant v WHERE v.product.id = :productId")
+    List<ProductVariant> findDetailByProductId(@Param("productId") Long productId);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +16,40 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findAllByProductId(Long productId);
     List<Review> findAllByUserId(Long userId);
     List<Review> findAllByProduct_IdIn(List<Long> productIds);
+
+    @Query("SELECT DISTINCT r.product.id FROM Review r WHERE r.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
+
+    // Keyset theo (created_at, id) giảm dần, cần index (product_id, created_at, id) trên reviews
+    @Query("SELECT r.id AS id, r.product.id AS productId, u.id AS userId, u.fullName AS userName, " +
+            "r.rating AS rating, r.title AS title, r.content AS content, r.createdAt AS createdAt " +
+            "FROM Review r JOIN r.user u " +
+            "WHERE r.product.id = :productId AND (:rating IS NULL OR r.rating = :rating) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewView> findFirstPage(@Param("productId") Long productId,
+                                   @Param("rating") Integer rating,
+                                   Pageable pageable);
+
+    @Query("SELECT r.id AS id, r.product.id AS productId, u.id AS userId, u.fullName AS userName, " +
+            "r.rating AS rating, r.title AS title, r.content AS content, r.createdAt AS createdAt " +
+            "FROM Review r JOIN r.user u " +
+            "WHERE r.product.id = :productId AND (:rating IS NULL OR r.rating = :rating) " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewView> findPageAfter(@Param("productId") Long productId,
+                                   @Param("rating") Integer rating,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+
+    interface ReviewView {
+        Long getId();
+        Long getProductId();
+        Long getUserId();
+        String getUserName();
+        Integer getRating();
+        String getTitle();
+        String getContent();
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -0,0 +1,24 @@
+package com.project.ClothingEcommerceWebsite.repositories;
+
+import com.project.ClothingEcommerceWebsite.models.SlugRedirect;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SlugRedirectRepository extends JpaRepository<SlugRedirect, Long> {
+
+    // Slug cũ có thể từng trỏ tới đối tượng khác, khi đó chuyển sang đối tượng mới nhất
+    @Modifying
+    @Query(value = "INSERT INTO slug_redirects (slug_type, old_slug, target_id) VALUES (:type, :oldSlug, :targetId) " +
+            "ON DUPLICATE KEY UPDATE target_id = VALUES(target_id)", nativeQuery = true)
+    int upsert(@Param("type") String type, @Param("oldSlug") String oldSlug, @Param("targetId") Long targetId);
+
+    @Modifying
+    @Query(value = "DELETE FROM slug_redirects WHERE slug_type = :type AND old_slug = :oldSlug", nativeQuery = true)
+    int deleteBySlug(@Param("type") String type, @Param("oldSlug") String oldSlug);
+
+    @Modifying
+    @Query(value = "DELETE FROM slug_redirects WHERE slug_type = :type AND target_id = :targetId", nativeQuery = true)
+    int deleteByTarget(@Param("type") String type, @Param("targetId") Long targetId);
+}
@@ -1,5 +1,6 @@
 package com.project.ClothingEcommerceWebsite.services;
 
+import com.project.ClothingEcommerceWebsite.dtos.request.AddCartItemRequest;
 import com.project.ClothingEcommerceWebsite.dtos.respond.CartItemResponse;
 import com.project.ClothingEcommerceWebsite.dtos.respond.CartResponse;
 import com.project.ClothingEcommerceWebsite.models.Cart;
@@ -10,8 +11,10 @@ import java.util.List;
 public interface CartService {
     Cart getCartByUser(Long userId);
     CartItem addItem(Long userId, Long variantId, int quantity);
+    List<CartItem> addItems(Long userId, List<AddCartItemRequest> items);
     CartItem updateItem(Long userId, Long itemId, int quantity);
     void removeItem(Long userId, Long itemId);
     void clearCart(Long userId);
     List<CartItem> getCartItems(Long userId);
+    CartResponse getCartView(Long userId);
 }
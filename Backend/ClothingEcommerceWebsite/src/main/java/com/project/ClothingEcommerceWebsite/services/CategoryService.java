@@ -1,6 +1,7 @@
 package com.project.ClothingEcommerceWebsite.services;
 
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateCategoryRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.CategoryCascadeResponse;
 import com.project.ClothingEcommerceWebsite.models.Category;
 import java.util.List;
 
@@ -13,5 +14,7 @@ public interface CategoryService {
 
     Category updateCategory(Long id, CreateCategoryRequest request);
 
+    CategoryCascadeResponse setActive(Long id, boolean active);
+
     void deleteCategory(Long id);
 }
@@ -4,15 +4,18 @@ import com.project.ClothingEcommerceWebsite.dtos.request.CreateProductVariantReq
 import com.project.ClothingEcommerceWebsite.dtos.respond.ProductDetailResponse;
 import com.project.ClothingEcommerceWebsite.dtos.respond.ProductListResponse;
 import com.project.ClothingEcommerceWebsite.models.Product;
+import com.project.ClothingEcommerceWebsite.utils.FieldSelection;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
 public interface ProductService {
     Product createProductWithVariants(CreateProductVariantRequest request);
-    List<ProductListResponse> getAllProduct(Pageable pageable);
-    List<ProductDetailResponse> searchByName(String name);
-    ProductDetailResponse getProductById(Long id);
+    List<ProductListResponse> getAllProduct(Long categoryId, Pageable pageable, FieldSelection fields);
+    List<ProductListResponse> getAllProductByRating(Long categoryId, Pageable pageable, FieldSelection fields);
+    List<ProductDetailResponse> searchByName(String name, Long categoryId);
+    ProductDetailResponse getProductById(Long id, boolean withVariants);
+    List<ProductDetailResponse> getProductsByIds(List<Long> ids);
     Product updateProduct(Long id, CreateProductVariantRequest request);
     void deleteProduct(Long id);
 }
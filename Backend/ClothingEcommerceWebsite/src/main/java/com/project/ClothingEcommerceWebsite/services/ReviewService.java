@@ -1,6 +1,7 @@
 package com.project.ClothingEcommerceWebsite.services;
 
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateReviewRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ReviewPageResponse;
 import com.project.ClothingEcommerceWebsite.models.Review;
 
 import java.util.List;
@@ -10,6 +11,7 @@ public interface ReviewService {
     Review updateReview(Long userId, Long reviewId, CreateReviewRequest request);
     void deleteReview(Long userId, Long reviewId);
     List<Review> getReviewByProduct(Long productId);
+    ReviewPageResponse getReviewPageByProduct(Long productId, Integer rating, String cursor, int size);
     List<Review> getReviewByUser(Long userId);
 
 }
@@ -20,6 +20,8 @@ public interface UserService {
 
     Optional<User> getUserByEmail(String email);
 
+    Optional<User> getUserWithRolesByEmail(String email);
+
     void updateUserRoles(Long id, Role role);
 
     void changeUser(Long id, ChangeUserRequest request);
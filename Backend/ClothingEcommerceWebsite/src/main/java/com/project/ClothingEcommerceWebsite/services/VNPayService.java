@@ -4,5 +4,5 @@ import java.util.Map;
 
 public interface VNPayService {
     String createPaymentUrl(Long amount, String orderId);
-    boolean verifyPaymentCallback(Map<String, String> params, String secureHashSecret, String secureHash);
+    boolean verifyPaymentCallback(Map<String, String> params, String secureHash);
 }
@@ -0,0 +1,64 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.repositories.CartRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Gom các lần thay đổi cart trong bộ nhớ rồi cập nhật carts.updated_at theo lô,
+// để thao tác giỏ hàng không phải ghi thêm một dòng mỗi request
+@Component
+public class CartActivityTracker {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Long> touched = new ConcurrentHashMap<>();
+
+    public CartActivityTracker(CartRepository cartRepository, PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void touch(Long cartId) {
+        touched.put(cartId, System.currentTimeMillis());
+    }
+
+    // Cart có thay đổi chưa được ghi xuống DB
+    public boolean isPending(Long cartId) {
+        return touched.containsKey(cartId);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.purge.activity-flush-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void flush() {
+        if (touched.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> snapshot = new HashMap<>(touched);
+        List<Long> ids = new ArrayList<>(snapshot.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> cartRepository.touchAll(batch, now));
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Could not update cart activity: " + e.getMessage());
+                return;
+            }
+            // Chỉ xóa các entry không bị touch thêm trong lúc đang ghi
+            for (Long id : batch) {
+                touched.remove(id, snapshot.get(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// userId -> cartId, cart của user không đổi id nên chỉ cần xóa khi user/cart bị xóa
+@Component
+public class CartIdCache {
+
+    private final Map<Long, Long> cartIdByUser = new ConcurrentHashMap<>();
+
+    public Optional<Long> get(Long userId) {
+        return Optional.ofNullable(cartIdByUser.get(userId));
+    }
+
+    public void put(Long userId, Long cartId) {
+        cartIdByUser.put(userId, cartId);
+    }
+
+    public void evict(Long userId) {
+        cartIdByUser.remove(userId);
+    }
+}
@@ -0,0 +1,152 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.exception.InternalServerException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Journal append-only cho cart write-behind. Mỗi dòng ghi số lượng tuyệt đối theo cart item id,
+// nên replay nhiều lần vẫn cho cùng kết quả: "S <cartId> <itemId> <quantity>" hoặc "D <cartId> <itemId>"
+class CartJournal {
+
+    static final int REMOVED = -1;
+    private static final String PREFIX = "cart-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path dir;
+    private final boolean fsync;
+    private long seq;
+    private long written;
+    private FileOutputStream out;
+    private Writer writer;
+
+    CartJournal(Path dir, boolean fsync) {
+        this.dir = dir;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(dir);
+            this.seq = existingSeqs().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+            open();
+        } catch (IOException e) {
+            throw new InternalServerException("Không mở được cart journal: " + e.getMessage());
+        }
+    }
+
+    synchronized void appendSet(Long cartId, Long itemId, int quantity) {
+        write("S " + cartId + " " + itemId + " " + quantity);
+    }
+
+    synchronized void appendRemove(Long cartId, Long itemId) {
+        write("D " + cartId + " " + itemId);
+    }
+
+    private void write(String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+            if (fsync) {
+                out.getFD().sync();
+            }
+            written++;
+        } catch (IOException e) {
+            throw new InternalServerException("Không ghi được cart journal: " + e.getMessage());
+        }
+    }
+
+    // Đóng file hiện tại (nếu có dữ liệu) và mở file mới; trả về seq lớn nhất đã đóng
+    synchronized long rotate() {
+        if (written == 0) {
+            return seq - 1;
+        }
+        try {
+            writer.close();
+            seq++;
+            open();
+            return seq - 1;
+        } catch (IOException e) {
+            throw new InternalServerException("Không xoay vòng được cart journal: " + e.getMessage());
+        }
+    }
+
+    synchronized long currentSeq() {
+        return seq;
+    }
+
+    void deleteUpTo(long maxSeq) {
+        for (Long s : existingSeqs()) {
+            if (s <= maxSeq) {
+                try {
+                    Files.deleteIfExists(fileOf(s));
+                } catch (IOException e) {
+                    System.err.println("Warning: Could not delete cart journal " + s + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Gộp các file có seq < beforeSeq thành trạng thái cuối của từng cart item (REMOVED nếu đã xóa)
+    Map<Long, Integer> readUpTo(long beforeSeq) {
+        Map<Long, Integer> state = new LinkedHashMap<>();
+        for (Long s : existingSeqs()) {
+            if (s >= beforeSeq) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(fileOf(s), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    // Dòng cuối có thể bị cắt dở nếu process chết giữa chừng
+                    if (parts.length == 4 && parts[0].equals("S")) {
+                        state.put(Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+                    } else if (parts.length == 3 && parts[0].equals("D")) {
+                        state.put(Long.parseLong(parts[2]), REMOVED);
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Warning: Could not read cart journal " + s + ": " + e.getMessage());
+            }
+        }
+        return state;
+    }
+
+    private void open() throws IOException {
+        out = new FileOutputStream(fileOf(seq).toFile(), true);
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        written = 0;
+    }
+
+    private Path fileOf(long s) {
+        return dir.resolve(PREFIX + s + SUFFIX);
+    }
+
+    private List<Long> existingSeqs() {
+        List<Long> seqs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            seqs.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                        }
+                    });
+        } catch (IOException e) {
+            System.err.println("Warning: Could not list cart journal: " + e.getMessage());
+        }
+        Collections.sort(seqs);
+        return seqs;
+    }
+
+    synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not close cart journal: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.repositories.CartItemRepository;
+import com.project.ClothingEcommerceWebsite.repositories.CartRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+// Xóa các dòng cart_items của giỏ hàng không thay đổi quá idle-days. Mỗi câu DELETE có LIMIT và chạy
+// trong transaction riêng để không giữ lock lâu; giữa các lô job nghỉ và lùi lại khi connection pool đang bận.
+// Token reset/confirm là JWT không lưu DB nên không có gì để dọn.
+@Component
+public class CartPurgeJob {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartActivityTracker activityTracker;
+    private final CartViewCache cartViewCache;
+    private final Optional<CartWriteBehindStore> writeBehind;
+    private final TransactionTemplate transactionTemplate;
+    private final HikariDataSource hikari;
+
+    private final boolean enabled;
+    private final long idleDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final double busyPoolRatio;
+    private final long maxRunMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile LocalDateTime lastStartedAt;
+    private volatile LocalDateTime lastFinishedAt;
+    private volatile String lastError;
+    private volatile long cartsPurged;
+    private volatile long itemsDeleted;
+    private volatile long cartsBackfilled;
+    private volatile long throttledMillis;
+
+    public CartPurgeJob(CartRepository cartRepository,
+                        CartItemRepository cartItemRepository,
+                        CartActivityTracker activityTracker,
+                        CartViewCache cartViewCache,
+                        Optional<CartWriteBehindStore> writeBehind,
+                        PlatformTransactionManager transactionManager,
+                        DataSource dataSource,
+                        @Value("${cart.purge.enabled}") boolean enabled,
+                        @Value("${cart.purge.idle-days}") long idleDays,
+                        @Value("${cart.purge.chunk-size}") int chunkSize,
+                        @Value("${cart.purge.pause-ms}") long pauseMillis,
+                        @Value("${cart.purge.busy-pool-ratio}") double busyPoolRatio,
+                        @Value("${cart.purge.max-run-minutes}") long maxRunMinutes) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.activityTracker = activityTracker;
+        this.cartViewCache = cartViewCache;
+        this.writeBehind = writeBehind;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hikari = hikariOf(dataSource);
+        this.enabled = enabled;
+        this.idleDays = idleDays;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.busyPoolRatio = busyPoolRatio;
+        this.maxRunMillis = maxRunMinutes * 60_000;
+    }
+
+    private static HikariDataSource hikariOf(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException ignored) {
+        }
+        return null;
+    }
+
+    @Scheduled(cron = "${cart.purge.cron}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        lastStartedAt = LocalDateTime.now();
+        lastError = null;
+        cartsPurged = 0;
+        itemsDeleted = 0;
+        cartsBackfilled = 0;
+        throttledMillis = 0;
+        long deadline = System.currentTimeMillis() + maxRunMillis;
+        try {
+            // Ghi các lần hoạt động còn trong bộ nhớ trước khi so với updated_at
+            activityTracker.flush();
+            backfill(deadline);
+            purge(LocalDateTime.now().minusDays(idleDays), deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "interrupted";
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            System.err.println("Warning: Cart purge failed: " + e.getMessage());
+        } finally {
+            lastFinishedAt = LocalDateTime.now();
+            running.set(false);
+            System.out.println("Cart purge finished: " + cartsPurged + " carts, " + itemsDeleted
+                    + " items deleted, " + cartsBackfilled + " carts backfilled");
+        }
+    }
+
+    private void backfill(long deadline) throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        int updated;
+        do {
+            if (System.currentTimeMillis() > deadline) {
+                return;
+            }
+            updated = inTransaction(() -> cartRepository.backfillUpdatedAt(now, chunkSize));
+            cartsBackfilled += updated;
+            throttle();
+        } while (updated == chunkSize);
+    }
+
+    private void purge(LocalDateTime cutoff, long deadline) throws InterruptedException {
+        long afterId = 0;
+        while (System.currentTimeMillis() < deadline) {
+            List<Long> cartIds = new ArrayList<>(cartRepository.findIdleCartIds(cutoff, afterId, chunkSize));
+            if (cartIds.isEmpty()) {
+                return;
+            }
+            afterId = cartIds.get(cartIds.size() - 1);
+            cartIds.removeIf(activityTracker::isPending);
+            if (cartIds.isEmpty()) {
+                continue;
+            }
+
+            int deleted;
+            do {
+                deleted = inTransaction(() -> cartItemRepository.deleteIdleItems(cartIds, cutoff, chunkSize));
+                itemsDeleted += deleted;
+                throttle();
+            } while (deleted == chunkSize);
+
+            for (Long cartId : cartIds) {
+                cartViewCache.invalidate(cartId);
+                writeBehind.ifPresent(store -> store.evict(cartId));
+            }
+            cartsPurged += cartIds.size();
+        }
+    }
+
+    private int inTransaction(IntSupplier work) {
+        Integer result = transactionTemplate.execute(status -> work.getAsInt());
+        return result != null ? result : 0;
+    }
+
+    // Nghỉ giữa các lô; nếu pool đang dùng quá busy-pool-ratio thì chờ thêm để nhường cho request thật
+    private void throttle() throws InterruptedException {
+        long started = System.currentTimeMillis();
+        Thread.sleep(pauseMillis);
+        int waits = 0;
+        while (isPoolBusy() && waits++ < 50) {
+            Thread.sleep(Math.max(pauseMillis, 100) * 2);
+        }
+        throttledMillis += System.currentTimeMillis() - started;
+    }
+
+    private boolean isPoolBusy() {
+        // Pool chỉ được tạo khi có connection đầu tiên
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return false;
+        }
+        int total = pool.getTotalConnections();
+        return total > 0 && (double) pool.getActiveConnections() / total > busyPoolRatio;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", running.get());
+        status.put("lastStartedAt", lastStartedAt);
+        status.put("lastFinishedAt", lastFinishedAt);
+        status.put("cartsPurged", cartsPurged);
+        status.put("itemsDeleted", itemsDeleted);
+        status.put("cartsBackfilled", cartsBackfilled);
+        status.put("throttledMillis", throttledMillis);
+        status.put("lastError", lastError);
+        return status;
+    }
+}
@@ -1,98 +1,282 @@
 package com.project.ClothingEcommerceWebsite.services.impl;
 
+import com.project.ClothingEcommerceWebsite.dtos.request.AddCartItemRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.CartItemResponse;
 import com.project.ClothingEcommerceWebsite.dtos.respond.CartResponse;
+import com.project.ClothingEcommerceWebsite.exception.BadRequestException;
 import com.project.ClothingEcommerceWebsite.models.*;
 import com.project.ClothingEcommerceWebsite.repositories.*;
 import com.project.ClothingEcommerceWebsite.services.CartService;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class CartServiceImpl implements CartService {
 
+    private static final int MAX_BATCH_ITEMS = 100;
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductVariantRepository productVariantRepository;
     private final UserRepository userRepository;
+    private final ProductImageRepository productImageRepository;
+    private final InventoryRepository inventoryRepository;
+    private final CartIdCache cartIdCache;
+    private final CartViewCache cartViewCache;
+    private final CartActivityTracker cartActivityTracker;
+    // Chỉ có khi cart.storage.mode=write-behind
+    private final Optional<CartWriteBehindStore> writeBehind;
 
     @Override
     public Cart getCartByUser(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new RuntimeException("User not found"));
-                    Cart cart = Cart.builder().user(user).build();
-                    return cartRepository.save(cart);
-                });
+        return cartRepository.findById(getCartIdByUser(userId))
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+    }
+
+    private Long getCartIdByUser(Long userId) {
+        Optional<Long> cached = cartIdCache.get(userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<Long> existing = cartRepository.findIdByUserId(userId);
+        if (existing.isPresent()) {
+            cartIdCache.put(userId, existing.get());
+            return existing.get();
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long cartId = cartRepository.save(Cart.builder().user(user).updatedAt(LocalDateTime.now()).build()).getId();
+        // Cart mới chỉ được cache khi transaction commit, tránh giữ id của cart đã rollback
+        AfterCommit.run(() -> cartIdCache.put(userId, cartId));
+        return cartId;
     }
 
     @Override
     public CartItem addItem(Long userId, Long variantId, int quantity) {
-        Cart cart = getCartByUser(userId);
+        Long cartId = getCartIdByUser(userId);
+        cartActivityTracker.touch(cartId);
+        if (writeBehind.isPresent()) {
+            CartWriteBehindStore.LineSnapshot line = writeBehind.get().increment(cartId, variantId, quantity);
+            if (line != null) {
+                cartViewCache.invalidate(cartId);
+                return withQuantity(line);
+            }
+        }
         ProductVariant variant = productVariantRepository.findById(variantId)
                 .orElseThrow(() -> new RuntimeException("Product variant not found"));
 
-        // Kiểm tra item đã tồn tại chưa
-        List<CartItem> existingItems = cartItemRepository.findByCartId(cart.getId());
-        for (CartItem item : existingItems) {
-            if (item.getVariant().getId().equals(variantId)) {
-                item.setQuantity(item.getQuantity() + quantity);
-                return cartItemRepository.save(item);
-            }
+        cartItemRepository.upsertQuantity(cartId, variantId, unitPriceOf(variant), quantity);
+        cartViewCache.invalidate(cartId);
+        CartItem item = cartItemRepository.findByCartIdAndVariantId(cartId, variantId)
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        writeBehind.ifPresent(store -> store.track(cartId, item.getId(), variantId, item.getQuantity()));
+        return copyOf(item, item.getQuantity());
+    }
+
+    @Override
+    public List<CartItem> addItems(Long userId, List<AddCartItemRequest> items) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("Danh sách sản phẩm trống");
         }
+        if (items.size() > MAX_BATCH_ITEMS) {
+            throw new BadRequestException("Chỉ được thêm tối đa " + MAX_BATCH_ITEMS + " sản phẩm một lần");
+        }
+        // Gộp các dòng trùng variant trước khi ghi
+        Map<Long, Integer> quantityByVariant = new LinkedHashMap<>();
+        for (AddCartItemRequest item : items) {
+            quantityByVariant.merge(item.getVariantId(), item.getQuantity(), Integer::sum);
+        }
+
+        Long cartId = getCartIdByUser(userId);
+        cartActivityTracker.touch(cartId);
+        Map<Long, ProductVariant> variants = productVariantRepository.findAllById(quantityByVariant.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
+        if (variants.size() != quantityByVariant.size()) {
+            throw new RuntimeException("Product variant not found");
+        }
+
+        quantityByVariant.forEach((variantId, quantity) ->
+                cartItemRepository.upsertQuantity(cartId, variantId, unitPriceOf(variants.get(variantId)), quantity));
+        cartViewCache.invalidate(cartId);
+        return cartItemRepository.findByCartIdAndVariantIdIn(cartId, quantityByVariant.keySet()).stream()
+                .map(item -> copyOf(item, item.getQuantity()))
+                .collect(Collectors.toList());
+    }
+
+    private static Double unitPriceOf(ProductVariant variant) {
+        return variant.getPrice() != null ? variant.getPrice() : Double.MIN_VALUE;
+    }
+
+    // Bản sao không được quản lý bởi persistence context, mang số lượng đang giữ trong bộ nhớ
+    private CartItem withQuantity(CartWriteBehindStore.LineSnapshot line) {
+        CartItem item = cartItemRepository.findById(line.itemId())
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        return copyOf(item, line.quantity());
+    }
 
-        CartItem newItem = CartItem.builder()
-                .cart(cart)
-                .variant(variant)
+    // Bản sao tách khỏi persistence context, sửa trên đó không bị ghi xuống DB
+    private static CartItem copyOf(CartItem item, int quantity) {
+        return CartItem.builder()
+                .id(item.getId())
+                .cart(item.getCart())
+                .variant(item.getVariant())
+                .unitPrice(item.currentPrice())
                 .quantity(quantity)
-                .unitPrice(variant.getPrice() != null ? variant.getPrice() : Double.MIN_VALUE)
                 .build();
-
-        return cartItemRepository.save(newItem);
     }
 
     @Override
     public CartItem updateItem(Long userId, Long itemId, int quantity) {
-        Cart cart = getCartByUser(userId);
+        Long cartId = getCartIdByUser(userId);
+        cartActivityTracker.touch(cartId);
+        if (writeBehind.isPresent()) {
+            // Item không thuộc cart này sẽ không có trong bộ nhớ và đi tiếp xuống nhánh kiểm tra của DB
+            CartWriteBehindStore.LineSnapshot line = writeBehind.get().setQuantity(cartId, itemId, quantity);
+            if (line != null) {
+                cartViewCache.invalidate(cartId);
+                return withQuantity(line);
+            }
+        }
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
-        if (!item.getCart().getId().equals(cart.getId())) {
+        if (!item.getCart().getId().equals(cartId)) {
             throw new RuntimeException("Item does not belong to user's cart");
         }
 
         item.setQuantity(quantity);
-        return cartItemRepository.save(item);
+        cartViewCache.invalidate(cartId);
+        CartItem saved = cartItemRepository.save(item);
+        return copyOf(saved, saved.getQuantity());
     }
 
     @Override
     public void removeItem(Long userId, Long itemId) {
-        Cart cart = getCartByUser(userId);
+        Long cartId = getCartIdByUser(userId);
+        cartActivityTracker.touch(cartId);
+        if (writeBehind.isPresent() && writeBehind.get().remove(cartId, itemId)) {
+            cartViewCache.invalidate(cartId);
+            return;
+        }
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
-        if (!item.getCart().getId().equals(cart.getId())) {
+        if (!item.getCart().getId().equals(cartId)) {
             throw new RuntimeException("Item does not belong to this user's cart");
         }
 
         cartItemRepository.delete(item);
+        cartViewCache.invalidate(cartId);
     }
 
     @Override
     public void clearCart(Long userId) {
-        Cart cart = getCartByUser(userId);
-        cartItemRepository.deleteByCartId(cart.getId());
+        Long cartId = getCartIdByUser(userId);
+        writeBehind.ifPresent(store -> store.evict(cartId));
+        cartItemRepository.deleteByCartId(cartId);
+        cartViewCache.invalidate(cartId);
     }
 
     @Override
     public List<CartItem> getCartItems(Long userId) {
-        Cart cart = getCartByUser(userId);
-        return cartItemRepository.findByCartId(cart.getId());
+        Long cartId = getCartIdByUser(userId);
+        List<CartItem> items = cartItemRepository.findByCartId(cartId);
+        Map<Long, CartWriteBehindStore.LineSnapshot> overlay = overlayOf(cartId);
+        List<CartItem> result = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            CartWriteBehindStore.LineSnapshot line = overlay.get(item.getId());
+            if (line == null) {
+                result.add(copyOf(item, item.getQuantity()));
+            } else if (!line.removed()) {
+                result.add(copyOf(item, line.quantity()));
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, CartWriteBehindStore.LineSnapshot> overlayOf(Long cartId) {
+        return writeBehind.map(store -> store.overlay(cartId)).orElse(Collections.emptyMap());
+    }
+
+    @Override
+    public CartResponse getCartView(Long userId) {
+        return cartViewCache.get(getCartIdByUser(userId), this::buildCartView);
+    }
+
+    // Số query cố định: các dòng cart (join variant/product/size/color), ảnh và tồn kho theo IN
+    private CartResponse buildCartView(Long cartId) {
+        Map<Long, CartWriteBehindStore.LineSnapshot> overlay = overlayOf(cartId);
+        List<CartItemRepository.CartLineView> lines = cartItemRepository.findCartLines(cartId);
+        if (!overlay.isEmpty()) {
+            lines = lines.stream()
+                    .filter(line -> !overlay.containsKey(line.getId()) || !overlay.get(line.getId()).removed())
+                    .collect(Collectors.toList());
+        }
+        if (lines.isEmpty()) {
+            return CartResponse.builder().id(cartId).items(new ArrayList<>()).totalItems(0).subtotal(0.0).build();
+        }
+
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> variantIds = new HashSet<>();
+        for (CartItemRepository.CartLineView line : lines) {
+            productIds.add(line.getProductId());
+            variantIds.add(line.getVariantId());
+        }
+
+        // Ảnh đã sắp theo position, ảnh đầu tiên của mỗi sản phẩm là ảnh chính
+        Map<Long, String> primaryImageByProduct = new HashMap<>();
+        for (ProductImageRepository.ProductImageView image : productImageRepository.findImageViewsByProductIdIn(productIds)) {
+            primaryImageByProduct.putIfAbsent(image.getProductId(), image.getImageUrl());
+        }
+        Map<Long, Integer> stockByVariant = new HashMap<>();
+        for (InventoryRepository.VariantStockView stock : inventoryRepository.findStockByVariantIdIn(variantIds)) {
+            stockByVariant.put(stock.getVariantId(), stock.getQuantity());
+        }
+
+        List<CartItemResponse> items = new ArrayList<>(lines.size());
+        double subtotal = 0;
+        int totalItems = 0;
+        for (CartItemRepository.CartLineView line : lines) {
+            double price = line.getPrice() != null ? line.getPrice() : 0.0;
+            CartWriteBehindStore.LineSnapshot pending = overlay.get(line.getId());
+            int quantity = pending != null ? pending.quantity() : line.getQuantity();
+            int stock = stockByVariant.getOrDefault(line.getVariantId(), 0);
+            double lineTotal = price * quantity;
+            items.add(CartItemResponse.builder()
+                    .id(line.getId())
+                    .variantId(line.getVariantId())
+                    .productId(line.getProductId())
+                    .productName(line.getProductName())
+                    .productSlug(line.getProductSlug())
+                    .imageUrl(primaryImageByProduct.get(line.getProductId()))
+                    .sizeName(line.getSizeName())
+                    .colorName(line.getColorName())
+                    .colorCode(line.getColorCode())
+                    .quantity(quantity)
+                    .price(price)
+                    .stock(stock)
+                    .inStock(stock >= quantity)
+                    .lineTotal(lineTotal)
+                    .build());
+            subtotal += lineTotal;
+            totalItems += quantity;
+        }
+        return CartResponse.builder()
+                .id(cartId)
+                .items(items)
+                .totalItems(totalItems)
+                .subtotal(subtotal)
+                .build();
     }
 }
@@ -0,0 +1,30 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.CartResponse;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+// Cart view theo cartId: bị xóa mỗi khi cart thay đổi, TTL giới hạn độ cũ của giá và tồn kho
+@Component
+public class CartViewCache {
+
+    private final ExpiringCache<Long, CartResponse> cache;
+
+    public CartViewCache(@Value("${cart.view-cache.ttl-seconds}") long ttlSeconds,
+                         @Value("${cart.view-cache.max-size}") int maxSize) {
+        this.cache = new ExpiringCache<>(ttlSeconds * 1000, maxSize);
+    }
+
+    public CartResponse get(Long cartId, Function<Long, CartResponse> loader) {
+        return cache.getOrLoad(cartId, loader);
+    }
+
+    // Xóa ngay và xóa lại sau commit, tránh request đọc song song cache lại dữ liệu trước commit
+    public void invalidate(Long cartId) {
+        AfterCommit.runNowAndAfterCompletion(() -> cache.invalidate(cartId));
+    }
+}
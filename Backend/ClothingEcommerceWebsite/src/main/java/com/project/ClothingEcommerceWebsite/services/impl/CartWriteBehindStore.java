@@ -0,0 +1,406 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.repositories.CartItemRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Giữ số lượng các dòng cart đang hoạt động trong bộ nhớ, gộp các lần cập nhật và ghi xuống DB theo chu kỳ.
+// Mọi thay đổi được ghi vào journal trước khi áp dụng, nên nếu process chết thì lần khởi động sau sẽ replay lại.
+@Component
+@ConditionalOnProperty(name = "cart.storage.mode", havingValue = "write-behind")
+public class CartWriteBehindStore {
+
+    private static final int SHARD_COUNT = 16;
+
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CartJournal journal;
+    private final int maxCarts;
+    private final long idleMillis;
+    private final List<Map<Long, CartState>> shards = new ArrayList<>(SHARD_COUNT);
+    private final AtomicInteger size = new AtomicInteger();
+    // Seq nhỏ nhất của các file journal sinh ra trong lần chạy này; file cũ hơn cần replay trước khi xóa
+    private final long startSeq;
+    private volatile boolean replayed;
+
+    public CartWriteBehindStore(CartItemRepository cartItemRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${cart.write-behind.max-carts}") int maxCarts,
+                                @Value("${cart.write-behind.idle-seconds}") long idleSeconds,
+                                @Value("${cart.write-behind.journal-dir}") String journalDir,
+                                @Value("${cart.write-behind.journal-fsync}") boolean journalFsync) {
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCarts = maxCarts;
+        this.idleMillis = idleSeconds * 1000;
+        this.journal = new CartJournal(Paths.get(journalDir), journalFsync);
+        this.startSeq = journal.currentSeq();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    // Tăng số lượng của variant đã có trong cart; trả về null nếu cart không được giữ trong bộ nhớ
+    // hoặc variant chưa có dòng nào, khi đó caller ghi thẳng xuống DB rồi gọi track()
+    public LineSnapshot increment(Long cartId, Long variantId, int delta) {
+        while (true) {
+            CartState state = load(cartId);
+            if (state == null) {
+                return null;
+            }
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                Line line = state.byVariant.get(variantId);
+                if (line == null) {
+                    return null;
+                }
+                int quantity = line.removed ? delta : line.quantity + delta;
+                journal.appendSet(cartId, line.itemId, quantity);
+                line.quantity = quantity;
+                line.removed = false;
+                return state.markDirty(line);
+            }
+        }
+    }
+
+    public LineSnapshot setQuantity(Long cartId, Long itemId, int quantity) {
+        while (true) {
+            CartState state = load(cartId);
+            if (state == null) {
+                return null;
+            }
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                Line line = state.byItem.get(itemId);
+                if (line == null) {
+                    return null;
+                }
+                if (line.removed) {
+                    throw new RuntimeException("Cart item not found");
+                }
+                journal.appendSet(cartId, itemId, quantity);
+                line.quantity = quantity;
+                return state.markDirty(line);
+            }
+        }
+    }
+
+    public boolean remove(Long cartId, Long itemId) {
+        while (true) {
+            CartState state = load(cartId);
+            if (state == null) {
+                return false;
+            }
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                Line line = state.byItem.get(itemId);
+                if (line == null) {
+                    return false;
+                }
+                if (line.removed) {
+                    throw new RuntimeException("Cart item not found");
+                }
+                journal.appendRemove(cartId, itemId);
+                line.removed = true;
+                state.markDirty(line);
+                return true;
+            }
+        }
+    }
+
+    // Ghi nhận dòng vừa được insert trực tiếp xuống DB, nếu cart đang nằm trong bộ nhớ
+    public void track(Long cartId, Long itemId, Long variantId, int quantity) {
+        CartState state = shardOf(cartId).get(cartId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (!state.evicted && !state.byItem.containsKey(itemId)) {
+                state.put(new Line(itemId, variantId, quantity));
+            }
+        }
+    }
+
+    // Trạng thái trong bộ nhớ của các dòng, dùng để phủ lên kết quả đọc từ DB (có thể chưa được ghi xuống)
+    public Map<Long, LineSnapshot> overlay(Long cartId) {
+        CartState state = shardOf(cartId).get(cartId);
+        if (state == null) {
+            return Collections.emptyMap();
+        }
+        synchronized (state) {
+            state.lastAccess = System.currentTimeMillis();
+            Map<Long, LineSnapshot> result = new HashMap<>();
+            for (Line line : state.byItem.values()) {
+                result.put(line.itemId, line.snapshot());
+            }
+            return result;
+        }
+    }
+
+    // Ghi ngay các thay đổi của một cart trong transaction hiện tại (dùng trước khi tạo đơn hàng)
+    public void flushCart(Long cartId) {
+        CartState state = shardOf(cartId).get(cartId);
+        if (state == null) {
+            return;
+        }
+        List<Line> drained;
+        synchronized (state) {
+            drained = state.drainDirty();
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(drained));
+            } catch (RuntimeException e) {
+                restore(state, drained);
+                throw e;
+            }
+            purgeRemoved(state, drained);
+            return;
+        }
+        persist(drained);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    purgeRemoved(state, drained);
+                } else {
+                    restore(state, drained);
+                }
+            }
+        });
+    }
+
+    // Bỏ cart khỏi bộ nhớ, các thay đổi chưa ghi bị hủy (cart vừa được xóa hoặc đã chuyển thành đơn hàng).
+    // Trong transaction thì chờ commit, nếu rollback cart vẫn giữ nguyên trạng thái
+    public void evict(Long cartId) {
+        AfterCommit.run(() -> evictNow(cartId));
+    }
+
+    private void evictNow(Long cartId) {
+        CartState state = shardOf(cartId).remove(cartId);
+        if (state != null) {
+            synchronized (state) {
+                state.evicted = true;
+            }
+            size.decrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms}")
+    public void flush() {
+        if (!replayed) {
+            replayJournal();
+            if (!replayed) {
+                return;
+            }
+        }
+        // Xoay file trước khi gom: mọi thay đổi sau thời điểm này nằm ở file mới và sẽ được ghi ở chu kỳ sau
+        long closedSeq = journal.rotate();
+        Map<CartState, List<Line>> drained = new HashMap<>();
+        for (Map<Long, CartState> shard : shards) {
+            for (CartState state : shard.values()) {
+                synchronized (state) {
+                    if (state.dirty) {
+                        drained.put(state, state.drainDirty());
+                    }
+                }
+            }
+        }
+
+        if (!drained.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> drained.values().forEach(this::persist));
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Cart write-behind flush failed: " + e.getMessage());
+                drained.forEach(this::restore);
+                return;
+            }
+            drained.forEach(this::purgeRemoved);
+        }
+        journal.deleteUpTo(closedSeq);
+        evictIdle();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() {
+        try {
+            Map<Long, Integer> entries = journal.readUpTo(startSeq);
+            if (!entries.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> entries.forEach((itemId, quantity) -> {
+                    // UPDATE/DELETE theo id nên dòng đã bị xóa (cart đã đặt hàng) không bị tạo lại
+                    if (quantity == CartJournal.REMOVED) {
+                        cartItemRepository.deleteItemById(itemId);
+                    } else {
+                        cartItemRepository.updateQuantity(itemId, quantity);
+                    }
+                }));
+                System.out.println("Replayed " + entries.size() + " cart journal entries");
+            }
+            journal.deleteUpTo(startSeq - 1);
+            replayed = true;
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not replay cart journal, will retry: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    private CartState load(Long cartId) {
+        Map<Long, CartState> shard = shardOf(cartId);
+        CartState state = shard.get(cartId);
+        if (state != null) {
+            return state;
+        }
+        if (size.get() >= maxCarts) {
+            return null;
+        }
+        CartState loaded = new CartState();
+        for (CartItemRepository.CartLineView line : cartItemRepository.findCartLines(cartId)) {
+            loaded.put(new Line(line.getId(), line.getVariantId(), line.getQuantity()));
+        }
+        CartState existing = shard.putIfAbsent(cartId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        size.incrementAndGet();
+        return loaded;
+    }
+
+    private void persist(List<Line> lines) {
+        for (Line line : lines) {
+            if (line.flushedRemoved) {
+                cartItemRepository.deleteItemById(line.itemId);
+            } else {
+                cartItemRepository.updateQuantity(line.itemId, line.flushedQuantity);
+            }
+        }
+    }
+
+    private void restore(CartState state, List<Line> lines) {
+        synchronized (state) {
+            for (Line line : lines) {
+                if (!state.evicted) {
+                    state.markDirty(line);
+                }
+            }
+        }
+    }
+
+    private void purgeRemoved(CartState state, List<Line> lines) {
+        synchronized (state) {
+            for (Line line : lines) {
+                if (line.removed && !line.dirty) {
+                    state.byItem.remove(line.itemId);
+                    state.byVariant.remove(line.variantId, line);
+                }
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleMillis;
+        for (Map<Long, CartState> shard : shards) {
+            shard.entrySet().removeIf(entry -> {
+                CartState state = entry.getValue();
+                synchronized (state) {
+                    if (state.dirty || state.lastAccess > threshold) {
+                        return false;
+                    }
+                    state.evicted = true;
+                }
+                size.decrementAndGet();
+                return true;
+            });
+        }
+    }
+
+    private Map<Long, CartState> shardOf(Long cartId) {
+        return shards.get((int) (cartId & (SHARD_COUNT - 1)));
+    }
+
+    public record LineSnapshot(Long itemId, Long variantId, int quantity, boolean removed) {
+    }
+
+    private static final class CartState {
+        private final Map<Long, Line> byItem = new HashMap<>();
+        private final Map<Long, Line> byVariant = new HashMap<>();
+        private long lastAccess = System.currentTimeMillis();
+        private boolean dirty;
+        private boolean evicted;
+
+        private void put(Line line) {
+            byItem.put(line.itemId, line);
+            byVariant.put(line.variantId, line);
+        }
+
+        private LineSnapshot markDirty(Line line) {
+            line.dirty = true;
+            dirty = true;
+            lastAccess = System.currentTimeMillis();
+            return line.snapshot();
+        }
+
+        // Chụp giá trị cần ghi của từng dòng bẩn và đánh dấu sạch
+        private List<Line> drainDirty() {
+            List<Line> result = new ArrayList<>();
+            for (Line line : byItem.values()) {
+                if (line.dirty) {
+                    line.flushedQuantity = line.quantity;
+                    line.flushedRemoved = line.removed;
+                    line.dirty = false;
+                    result.add(line);
+                }
+            }
+            dirty = false;
+            return result;
+        }
+    }
+
+    private static final class Line {
+        private final Long itemId;
+        private final Long variantId;
+        private int quantity;
+        private boolean removed;
+        private boolean dirty;
+        private int flushedQuantity;
+        private boolean flushedRemoved;
+
+        private Line(Long itemId, Long variantId, int quantity) {
+            this.itemId = itemId;
+            this.variantId = variantId;
+            this.quantity = quantity;
+        }
+
+        private LineSnapshot snapshot() {
+            return new LineSnapshot(itemId, variantId, quantity, removed);
+        }
+    }
+}
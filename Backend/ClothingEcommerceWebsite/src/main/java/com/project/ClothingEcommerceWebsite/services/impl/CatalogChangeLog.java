@@ -0,0 +1,179 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.CatalogChangeResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.CatalogChangesResponse;
+import com.project.ClothingEcommerceWebsite.models.CatalogChange;
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.repositories.CatalogChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Nhật ký thay đổi catalog cho client đồng bộ tăng dần. Thay đổi được ghi trong cùng transaction với dữ liệu,
+// số thứ tự là id tự tăng của catalog_changes. PRODUCT bao gồm variant, ảnh và tồn kho của sản phẩm;
+// INVENTORY (id của variant) chỉ ghi khi riêng tồn kho thay đổi.
+// Id tự tăng được cấp lúc insert nhưng commit có thể theo thứ tự khác, nên khi đọc chỉ trả tới trước id
+// nhỏ nhất mà một transaction đang mở có thể nhận; client không bị bỏ sót thay đổi commit muộn.
+@Component
+public class CatalogChangeLog {
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxLimit;
+    private final long retentionDays;
+    private final int pruneChunk;
+
+    // Transaction đang ghi nhật ký -> id lớn nhất đã có trước lần ghi đầu tiên của nó
+    private final Map<Object, Long> inFlight = new ConcurrentHashMap<>();
+
+    public CatalogChangeLog(CatalogChangeRepository catalogChangeRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${catalog.changes.max-limit}") int maxLimit,
+                            @Value("${catalog.changes.retention-days}") long retentionDays,
+                            @Value("${catalog.changes.prune-chunk}") int pruneChunk) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxLimit = maxLimit;
+        this.retentionDays = retentionDays;
+        this.pruneChunk = pruneChunk;
+    }
+
+    public void upsert(Enums.CatalogEntity type, Long id) {
+        record(type, id, Enums.ChangeOp.UPSERT);
+    }
+
+    public void delete(Enums.CatalogEntity type, Long id) {
+        record(type, id, Enums.ChangeOp.DELETE);
+    }
+
+    // Danh mục và mọi danh mục con cháu cùng sản phẩm của chúng (trạng thái, tên, breadcrumbs thay đổi theo)
+    public void categorySubtreeChanged(Long rootId) {
+        inTransaction(() -> {
+            registerInFlight();
+            catalogChangeRepository.insertUpsertsForCategorySubtree(rootId);
+        });
+    }
+
+    private void record(Enums.CatalogEntity type, Long id, Enums.ChangeOp op) {
+        inTransaction(() -> {
+            registerInFlight();
+            catalogChangeRepository.save(CatalogChange.builder()
+                    .entityType(type)
+                    .entityId(id)
+                    .op(op)
+                    .changedAt(LocalDateTime.now())
+                    .build());
+        });
+    }
+
+    // Ghi ngoài transaction (autocommit) thì không theo dõi được lúc commit, nên mở transaction riêng
+    private void inTransaction(Runnable write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.run();
+        } else {
+            transactionTemplate.executeWithoutResult(status -> write.run());
+        }
+    }
+
+    private void registerInFlight() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        Object token = new Object();
+        Long maxId = catalogChangeRepository.findMaxId();
+        inFlight.put(token, maxId != null ? maxId : 0L);
+        TransactionSynchronizationManager.bindResource(this, token);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogChangeLog.this);
+                inFlight.remove(token);
+            }
+        });
+    }
+
+    public CatalogChangesResponse changesSince(long since, int limit) {
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        long upTo = stableUpTo(since);
+        Long minId = catalogChangeRepository.findMinId();
+        if (minId != null && since < minId - 1) {
+            return CatalogChangesResponse.builder()
+                    .changes(List.of())
+                    .nextSince(upTo)
+                    .hasMore(false)
+                    .reset(true)
+                    .build();
+        }
+        List<CatalogChange> rows = upTo > since
+                ? catalogChangeRepository.findRange(since, upTo, PageRequest.of(0, size + 1))
+                : List.of();
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        // Mỗi đối tượng chỉ giữ thay đổi cuối cùng, theo thứ tự của thay đổi đó
+        Map<String, CatalogChange> latest = new LinkedHashMap<>();
+        for (CatalogChange row : rows) {
+            String key = row.getEntityType() + ":" + row.getEntityId();
+            latest.remove(key);
+            latest.put(key, row);
+        }
+        List<CatalogChangeResponse> changes = new ArrayList<>(latest.size());
+        for (CatalogChange row : latest.values()) {
+            changes.add(CatalogChangeResponse.builder()
+                    .seq(row.getId())
+                    .type(row.getEntityType())
+                    .id(row.getEntityId())
+                    .op(row.getOp())
+                    .build());
+        }
+        return CatalogChangesResponse.builder()
+                .changes(changes)
+                .nextSince(hasMore ? rows.get(rows.size() - 1).getId() : upTo)
+                .hasMore(hasMore)
+                .reset(false)
+                .build();
+    }
+
+    // Mọi id <= giá trị này đã commit hoặc đã rollback, đọc tới đây không bỏ sót
+    private long stableUpTo(long since) {
+        Long maxId = catalogChangeRepository.findMaxId();
+        long upTo = maxId != null ? maxId : 0L;
+        for (Long floor : inFlight.values()) {
+            upTo = Math.min(upTo, floor);
+        }
+        return Math.max(upTo, since);
+    }
+
+    // Xóa theo lô, luôn giữ lại dòng mới nhất để số thứ tự không quay về đầu khi bảng trống
+    @Scheduled(cron = "${catalog.changes.prune-cron}")
+    public void prune() {
+        try {
+            Long maxId = catalogChangeRepository.findMaxId();
+            Long expiredId = catalogChangeRepository.findMaxIdBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (maxId == null || expiredId == null) {
+                return;
+            }
+            long bound = Math.min(expiredId, maxId - 1);
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> catalogChangeRepository.deleteUpTo(bound, pruneChunk));
+            } while (deleted != null && deleted == pruneChunk);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not prune catalog changes: " + e.getMessage());
+        }
+    }
+}
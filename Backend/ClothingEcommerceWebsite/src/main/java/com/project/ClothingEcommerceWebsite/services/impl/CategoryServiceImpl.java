@@ -1,13 +1,17 @@
 package com.project.ClothingEcommerceWebsite.services.impl;
 
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateCategoryRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.CategoryCascadeResponse;
 import com.project.ClothingEcommerceWebsite.exception.BadRequestException;
+import com.project.ClothingEcommerceWebsite.exception.NotFoundException;
 import com.project.ClothingEcommerceWebsite.models.Category;
+import com.project.ClothingEcommerceWebsite.models.Enums;
 import com.project.ClothingEcommerceWebsite.models.Product;
 import com.project.ClothingEcommerceWebsite.repositories.CategoryRepository;
 import com.project.ClothingEcommerceWebsite.repositories.ProductRepository;
 import com.project.ClothingEcommerceWebsite.services.CategoryService;
 import com.project.ClothingEcommerceWebsite.utils.SlugUtil;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -24,7 +28,23 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CategoryTree categoryTree;
+
+    @Autowired
+    private SimilarProductIndex similarProductIndex;
+
+    @Autowired
+    private SlugDirectory slugDirectory;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
+
     @Override
+    @Transactional
     public Category createCategory(CreateCategoryRequest request) {
         if(categoryRepository.existsByName(request.getName())) {
             throw new BadRequestException("Tên danh mục đã tồn tại. Vui lòng sử dụng tên khác!!");
@@ -44,6 +64,9 @@ public class CategoryServiceImpl implements CategoryService {
                 .isActive(request.getIsActive())
                 .build();
         categoryRepository.save(category);
+        slugDirectory.categorySlugChanged(category.getId(), null, category.getSlug());
+        catalogChangeLog.upsert(Enums.CatalogEntity.CATEGORY, category.getId());
+        categoryTree.refresh();
         return category;
     }
     @Override
@@ -57,12 +80,14 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional
     public Category updateCategory(Long id, CreateCategoryRequest request) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
         if(categoryRepository.existsByNameAndIdNot(request.getName(),id)) {
             throw new BadRequestException("Tên danh mục đã tồn tại. Vui lòng sử dụng tên khác!!");
         }
+        String oldSlug = category.getSlug();
         if (request.getName() != null && !request.getName().isBlank()) {
             category.setName(request.getName());
             category.setSlug(SlugUtil.toSlug(request.getName()));
@@ -75,47 +100,51 @@ public class CategoryServiceImpl implements CategoryService {
                     .orElseThrow(() -> new RuntimeException("Parent category not found"));
             category.setParentId(parent);
         }
-        if (request.getIsActive() != null) {
-            boolean newStatus = request.getIsActive();
-            boolean oldStatus = category.getIsActive();
-
-            if (newStatus != oldStatus) {
-                category.setIsActive(newStatus);
-                boolean isParent = (category.getParentId() == null);
-
-                if (isParent) {
-                    List<Category> children = categoryRepository.findByParentIdId(id);
-                    if (!children.isEmpty()) {
-                        children.forEach(child -> child.setIsActive(newStatus));
-                        categoryRepository.saveAll(children);
-
-                        for (Category child : children) {
-                            List<Product> products = productRepository.findByCategoryId(child.getId());
-                            if (!products.isEmpty()) {
-                                products.forEach(p -> p.setIsPublished(newStatus));
-                                productRepository.saveAll(products);
-                            }
-                        }
-                    }
-
-                    List<Product> parentProducts = productRepository.findByCategoryId(id);
-                    if (!parentProducts.isEmpty()) {
-                        parentProducts.forEach(p -> p.setIsPublished(newStatus));
-                        productRepository.saveAll(parentProducts);
-                    }
-                } else {
-                    List<Product> products = productRepository.findByCategoryId(id);
-                    if (!products.isEmpty()) {
-                        products.forEach(p -> p.setIsPublished(newStatus));
-                        productRepository.saveAll(products);
-                    }
-                }
-            }
+        if (request.getIsActive() != null && !request.getIsActive().equals(category.getIsActive())) {
+            cascadeActive(id, request.getIsActive());
+            category.setIsActive(request.getIsActive());
         }
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        productDetailCache.invalidateAll();
+        if (!oldSlug.equals(saved.getSlug())) {
+            slugDirectory.categorySlugChanged(id, oldSlug, saved.getSlug());
+        }
+        catalogChangeLog.categorySubtreeChanged(id);
+        categoryTree.refresh();
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public CategoryCascadeResponse setActive(Long id, boolean active) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Category not found with id: " + id));
+        CategoryCascadeResponse result = cascadeActive(id, active);
+        productDetailCache.invalidateAll();
+        category.setIsActive(active);
+        categoryRepository.save(category);
+        catalogChangeLog.categorySubtreeChanged(id);
+        categoryTree.refresh();
+        return result;
+    }
+
+    // Bật/tắt cả cây con và sản phẩm của nó bằng hai câu UPDATE, không phụ thuộc số danh mục hay sản phẩm
+    private CategoryCascadeResponse cascadeActive(Long id, boolean active) {
+        int categoriesUpdated = categoryRepository.updateActiveInSubtree(id, active);
+        int productsUpdated = productRepository.updatePublishedInCategorySubtree(id, active);
+        if (productsUpdated > 0) {
+            similarProductIndex.markAllChanged();
+        }
+        return CategoryCascadeResponse.builder()
+                .categoryId(id)
+                .isActive(active)
+                .categoriesUpdated(categoriesUpdated)
+                .productsUpdated(productsUpdated)
+                .build();
     }
 
     @Override
+    @Transactional
     public void deleteCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
@@ -134,5 +163,9 @@ public class CategoryServiceImpl implements CategoryService {
             );
         }
         categoryRepository.delete(category);
+        productDetailCache.invalidateAll();
+        slugDirectory.categoryDeleted(id);
+        catalogChangeLog.delete(Enums.CatalogEntity.CATEGORY, id);
+        categoryTree.refresh();
     }
 }
@@ -0,0 +1,172 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.CategoryNodeResponse;
+import com.project.ClothingEcommerceWebsite.repositories.CategoryRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Cây danh mục trong bộ nhớ, bất biến và được thay nguyên khối sau mỗi lần ghi danh mục.
+// Mỗi node có khoảng [tin, tout] theo thứ tự duyệt DFS (Euler tour): x thuộc cây con của r
+// khi tin[r] <= tin[x] <= tout[r], và id của cả cây con là một đoạn liên tục trong mảng order.
+@Component
+public class CategoryTree {
+
+    private final CategoryRepository categoryRepository;
+    private volatile Tree tree = Tree.EMPTY;
+
+    public CategoryTree(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public record Node(Long id, Long parentId, String name, String slug, boolean active,
+                       int tin, int tout, List<Long> path) {
+    }
+
+    private record Tree(Map<Long, Node> byId, Map<String, Node> bySlug, long[] order,
+                        List<CategoryNodeResponse> menu, List<CategoryNodeResponse> activeMenu) {
+        private static final Tree EMPTY = new Tree(Map.of(), Map.of(), new long[0], List.of(), List.of());
+    }
+
+    // Gọi sau khi tạo/sửa/xóa danh mục; trong transaction thì đợi commit
+    public void refresh() {
+        AfterCommit.run(this::rebuild);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        try {
+            tree = build(categoryRepository.findAllNodes());
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not build category tree: " + e.getMessage());
+        }
+    }
+
+    private static Tree build(List<CategoryRepository.CategoryNodeView> rows) {
+        Map<Long, CategoryRepository.CategoryNodeView> rowById = new HashMap<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> roots = new ArrayList<>();
+        for (CategoryRepository.CategoryNodeView row : rows) {
+            rowById.put(row.getId(), row);
+        }
+        // rows đã sắp theo id nên con của mỗi node cũng theo thứ tự id
+        for (CategoryRepository.CategoryNodeView row : rows) {
+            if (row.getParentId() == null || !rowById.containsKey(row.getParentId())) {
+                roots.add(row.getId());
+            } else {
+                children.computeIfAbsent(row.getParentId(), k -> new ArrayList<>()).add(row.getId());
+            }
+        }
+
+        Map<Long, Node> byId = new HashMap<>();
+        long[] order = new long[rows.size()];
+        int[] tin = new int[1];
+        for (Long root : roots) {
+            visit(root, List.of(), rowById, children, byId, order, tin);
+        }
+        if (byId.size() < rows.size()) {
+            // Chỉ xảy ra khi parent_id tạo thành vòng; các node đó bị bỏ khỏi cây
+            System.err.println("Warning: " + (rows.size() - byId.size()) + " categories are in a parent cycle");
+        }
+
+        Map<String, Node> bySlug = new HashMap<>();
+        for (Node node : byId.values()) {
+            bySlug.put(node.slug(), node);
+        }
+        return new Tree(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(bySlug),
+                Arrays.copyOf(order, tin[0]),
+                menuOf(roots, children, byId, false), menuOf(roots, children, byId, true));
+    }
+
+    // Danh mục ít cấp nên đệ quy theo độ sâu là an toàn
+    private static void visit(Long id, List<Long> parentPath, Map<Long, CategoryRepository.CategoryNodeView> rowById,
+                              Map<Long, List<Long>> children, Map<Long, Node> byId, long[] order, int[] tin) {
+        CategoryRepository.CategoryNodeView row = rowById.get(id);
+        List<Long> path = new ArrayList<>(parentPath);
+        path.add(id);
+        int start = tin[0]++;
+        order[start] = id;
+        for (Long child : children.getOrDefault(id, List.of())) {
+            visit(child, path, rowById, children, byId, order, tin);
+        }
+        byId.put(id, new Node(id, row.getParentId(), row.getName(), row.getSlug(),
+                Boolean.TRUE.equals(row.getIsActive()), start, tin[0] - 1, List.copyOf(path)));
+    }
+
+    private static List<CategoryNodeResponse> menuOf(List<Long> ids, Map<Long, List<Long>> children,
+                                                     Map<Long, Node> byId, boolean activeOnly) {
+        List<CategoryNodeResponse> result = new ArrayList<>();
+        for (Long id : ids) {
+            Node node = byId.get(id);
+            if (node == null || (activeOnly && !node.active())) {
+                continue;
+            }
+            result.add(CategoryNodeResponse.builder()
+                    .id(node.id())
+                    .name(node.name())
+                    .slug(node.slug())
+                    .isActive(node.active())
+                    .children(menuOf(children.getOrDefault(id, List.of()), children, byId, activeOnly))
+                    .build());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public Optional<Node> get(Long id) {
+        return Optional.ofNullable(tree.byId().get(id));
+    }
+
+    public Optional<Node> getBySlug(String slug) {
+        return Optional.ofNullable(tree.bySlug().get(slug));
+    }
+
+    // Kiểm tra O(1) bằng khoảng Euler
+    public boolean isInSubtree(Long categoryId, Long rootId) {
+        Tree current = tree;
+        Node node = current.byId().get(categoryId);
+        Node root = current.byId().get(rootId);
+        return node != null && root != null && root.tin() <= node.tin() && node.tin() <= root.tout();
+    }
+
+    // Id của danh mục và toàn bộ danh mục con cháu; rỗng nếu không có trong cây
+    public List<Long> subtreeIds(Long rootId) {
+        Tree current = tree;
+        Node root = current.byId().get(rootId);
+        if (root == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(root.tout() - root.tin() + 1);
+        for (int i = root.tin(); i <= root.tout(); i++) {
+            ids.add(current.order()[i]);
+        }
+        return ids;
+    }
+
+    // Đường dẫn từ gốc tới danh mục, dùng cho breadcrumb
+    public List<CategoryNodeResponse> breadcrumbs(Long categoryId) {
+        Tree current = tree;
+        Node node = current.byId().get(categoryId);
+        if (node == null) {
+            return List.of();
+        }
+        List<CategoryNodeResponse> result = new ArrayList<>(node.path().size());
+        for (Long id : node.path()) {
+            Node step = current.byId().get(id);
+            result.add(CategoryNodeResponse.builder()
+                    .id(step.id())
+                    .name(step.name())
+                    .slug(step.slug())
+                    .isActive(step.active())
+                    .build());
+        }
+        return result;
+    }
+
+    // Danh mục bị tắt thì cả nhánh con bị ẩn khỏi menu activeOnly
+    public List<CategoryNodeResponse> menu(boolean activeOnly) {
+        return activeOnly ? tree.activeMenu() : tree.menu();
+    }
+}
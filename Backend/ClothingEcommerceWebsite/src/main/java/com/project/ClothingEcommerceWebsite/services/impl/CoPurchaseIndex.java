@@ -0,0 +1,316 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.RelatedProductResponse;
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.models.Order;
+import com.project.ClothingEcommerceWebsite.models.OrderItem;
+import com.project.ClothingEcommerceWebsite.repositories.OrderItemRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.LongIntCountMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// "Thường được mua cùng": đếm số đơn hàng chứa đồng thời từng cặp sản phẩm, mỗi sản phẩm chỉ giữ top-K.
+// Chỉ mục lưu dạng CSR (mảng key đã sắp, offset, neighbor, weight) nên tra cứu là một lần binary search.
+// Đơn mới được cộng vào delta và gộp định kỳ; chỉ mục được dựng lại toàn bộ từ order_items theo lịch.
+// Rebuild nhớ các order id đã quét để đơn commit trong lúc quét không bị đếm hai lần hoặc bị mất.
+@Component
+public class CoPurchaseIndex {
+
+    private final OrderItemRepository orderItemRepository;
+    private final int topK;
+    private final int orderChunk;
+    private final int maxProductsPerOrder;
+
+    private volatile Csr index = Csr.EMPTY;
+    // Chỉ truy cập trong synchronized (this)
+    private Map<Long, LongIntCountMap> delta = new HashMap<>();
+    // Các đơn commit từ lúc rebuild bắt đầu quét (null khi không rebuild), để biết đơn nào lần quét chưa đọc
+    private List<PendingOrder> sinceRebuild;
+    private final Object rebuildLock = new Object();
+
+    public CoPurchaseIndex(OrderItemRepository orderItemRepository,
+                           @Value("${related.top-k}") int topK,
+                           @Value("${related.order-chunk}") int orderChunk,
+                           @Value("${related.max-products-per-order}") int maxProductsPerOrder) {
+        this.orderItemRepository = orderItemRepository;
+        this.topK = topK;
+        this.orderChunk = orderChunk;
+        this.maxProductsPerOrder = maxProductsPerOrder;
+    }
+
+    public void recordOrder(List<OrderItem> items) {
+        long[] productIds = items.stream().mapToLong(item -> item.getProduct().getId()).distinct().toArray();
+        if (productIds.length < 2) {
+            return;
+        }
+        Order order = items.get(0).getOrder();
+        PendingOrder pending = new PendingOrder(order != null && order.getId() != null ? order.getId() : -1L, productIds);
+        AfterCommit.run(() -> addToDelta(pending));
+    }
+
+    private synchronized void addToDelta(PendingOrder order) {
+        addPairs(delta, order.productIds(), order.productIds().length);
+        if (sinceRebuild != null) {
+            sinceRebuild.add(order);
+        }
+    }
+
+    // Đơn có quá nhiều sản phẩm (mua sỉ) chỉ lấy maxProductsPerOrder sản phẩm đầu để tránh bùng nổ số cặp
+    private void addPairs(Map<Long, LongIntCountMap> counts, long[] productIds, int length) {
+        int n = Math.min(length, maxProductsPerOrder);
+        for (int i = 0; i < n; i++) {
+            LongIntCountMap row = counts.computeIfAbsent(productIds[i], k -> new LongIntCountMap(8));
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    row.increment(productIds[j], 1);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${related.merge-interval-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void mergeDelta() {
+        Map<Long, LongIntCountMap> pending;
+        Csr base;
+        synchronized (this) {
+            if (delta.isEmpty()) {
+                return;
+            }
+            pending = delta;
+            delta = new HashMap<>();
+            base = index;
+        }
+        Csr merged = base.merge(pending, topK);
+        synchronized (this) {
+            // Nếu rebuild đã công bố chỉ mục mới trong lúc gộp thì bỏ kết quả: các đơn trong pending
+            // hoặc đã commit trước khi quét (được đọc từ DB), hoặc nằm trong sinceRebuild
+            if (index == base) {
+                index = merged;
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${related.rebuild-cron}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            try {
+                long started = System.currentTimeMillis();
+                synchronized (this) {
+                    sinceRebuild = new ArrayList<>();
+                }
+                Map<Long, LongIntCountMap> counts = new HashMap<>();
+                BitSet scanned = new BitSet();
+                Long maxOrderId = orderItemRepository.findMaxOrderId();
+                long[] buffer = new long[maxProductsPerOrder];
+                // Quét theo khoảng order id để mỗi đơn nằm trọn trong một lần đọc
+                for (long from = 0; maxOrderId != null && from < maxOrderId; from += orderChunk) {
+                    long currentOrder = -1;
+                    int size = 0;
+                    for (OrderItemRepository.OrderProductView row : orderItemRepository.findOrderProductsInRange(
+                            from, from + orderChunk, Enums.OrderStatus.CANCELLED)) {
+                        if (row.getOrderId() != currentOrder) {
+                            addPairs(counts, buffer, size);
+                            currentOrder = row.getOrderId();
+                            scanned.set(Math.toIntExact(currentOrder));
+                            size = 0;
+                        }
+                        if (size < buffer.length && !contains(buffer, size, row.getProductId())) {
+                            buffer[size++] = row.getProductId();
+                        }
+                    }
+                    addPairs(counts, buffer, size);
+                }
+                Csr built = Csr.build(counts, topK);
+                synchronized (this) {
+                    // Delta cũ đã nằm trong lần quét; chỉ giữ các đơn commit sau khi khoảng id của chúng đã được đọc,
+                    // lần mergeDelta kế tiếp sẽ gộp chúng vào chỉ mục mới
+                    delta = new HashMap<>();
+                    for (PendingOrder order : sinceRebuild) {
+                        if (order.orderId() < 0 || !scanned.get(Math.toIntExact(order.orderId()))) {
+                            addPairs(delta, order.productIds(), order.productIds().length);
+                        }
+                    }
+                    index = built;
+                }
+                System.out.println("Built co-purchase index for " + built.keys.length + " products in "
+                        + (System.currentTimeMillis() - started) + " ms");
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Could not build co-purchase index: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    sinceRebuild = null;
+                }
+            }
+        }
+    }
+
+    private static boolean contains(long[] values, int size, long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<RelatedProductResponse> related(Long productId, int limit) {
+        Csr current = index;
+        int row = Arrays.binarySearch(current.keys, productId);
+        if (row < 0) {
+            return Collections.emptyList();
+        }
+        int from = current.offsets[row];
+        int to = Math.min(current.offsets[row + 1], from + Math.max(limit, 0));
+        List<RelatedProductResponse> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(new RelatedProductResponse(current.neighbors[i], current.weights[i]));
+        }
+        return result;
+    }
+
+    // Gợi ý cho cả giỏ hàng: cộng trọng số từ từng sản phẩm, bỏ các sản phẩm đã có trong giỏ
+    public List<RelatedProductResponse> relatedToAll(Collection<Long> productIds, int limit) {
+        Csr current = index;
+        LongIntCountMap scores = new LongIntCountMap(64);
+        for (Long productId : productIds) {
+            int row = Arrays.binarySearch(current.keys, productId);
+            if (row >= 0) {
+                for (int i = current.offsets[row]; i < current.offsets[row + 1]; i++) {
+                    if (!productIds.contains(current.neighbors[i])) {
+                        scores.increment(current.neighbors[i], current.weights[i]);
+                    }
+                }
+            }
+        }
+        List<RelatedProductResponse> result = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> result.add(new RelatedProductResponse(id, score)));
+        result.sort(Comparator.comparingLong(RelatedProductResponse::getScore).reversed()
+                .thenComparingLong(RelatedProductResponse::getId));
+        return result.subList(0, Math.min(Math.max(limit, 0), result.size()));
+    }
+
+    private record PendingOrder(long orderId, long[] productIds) {
+    }
+
+    private static final class Csr {
+        private static final Csr EMPTY = new Csr(new long[0], new int[]{0}, new long[0], new int[0]);
+
+        private final long[] keys;
+        private final int[] offsets;
+        private final long[] neighbors;
+        private final int[] weights;
+
+        private Csr(long[] keys, int[] offsets, long[] neighbors, int[] weights) {
+            this.keys = keys;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.weights = weights;
+        }
+
+        private static Csr build(Map<Long, LongIntCountMap> counts, int topK) {
+            long[] keys = counts.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            Builder builder = new Builder(keys.length, topK);
+            for (long key : keys) {
+                builder.add(key, counts.get(key));
+            }
+            return builder.build();
+        }
+
+        // Gộp delta vào chỉ mục hiện tại; sản phẩm không có trong delta giữ nguyên danh sách
+        private Csr merge(Map<Long, LongIntCountMap> delta, int topK) {
+            long[] deltaKeys = delta.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            Builder builder = new Builder(keys.length + deltaKeys.length, topK);
+            int i = 0;
+            int j = 0;
+            while (i < keys.length || j < deltaKeys.length) {
+                if (j >= deltaKeys.length || (i < keys.length && keys[i] < deltaKeys[j])) {
+                    builder.copy(this, i++);
+                } else {
+                    long key = deltaKeys[j++];
+                    LongIntCountMap combined = delta.get(key);
+                    if (i < keys.length && keys[i] == key) {
+                        for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                            combined.increment(neighbors[k], weights[k]);
+                        }
+                        i++;
+                    }
+                    builder.add(key, combined);
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    private static final class Builder {
+        private final int topK;
+        private final long[] keys;
+        private final int[] offsets;
+        private long[] neighbors;
+        private int[] weights;
+        private int rows;
+        private int size;
+
+        private Builder(int maxRows, int topK) {
+            this.topK = topK;
+            this.keys = new long[maxRows];
+            this.offsets = new int[maxRows + 1];
+            this.neighbors = new long[Math.max(16, maxRows * Math.min(topK, 8))];
+            this.weights = new int[neighbors.length];
+        }
+
+        private void add(long key, LongIntCountMap row) {
+            long[] ids = new long[row.size()];
+            int[] counts = new int[row.size()];
+            int[] n = {0};
+            row.forEach((id, count) -> {
+                ids[n[0]] = id;
+                counts[n[0]++] = count;
+            });
+            Integer[] order = new Integer[n[0]];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a]) : Long.compare(ids[a], ids[b]));
+            int take = Math.min(topK, order.length);
+            ensureCapacity(size + take);
+            keys[rows] = key;
+            for (int i = 0; i < take; i++) {
+                neighbors[size] = ids[order[i]];
+                weights[size++] = counts[order[i]];
+            }
+            offsets[++rows] = size;
+        }
+
+        private void copy(Csr source, int row) {
+            int from = source.offsets[row];
+            int length = source.offsets[row + 1] - from;
+            ensureCapacity(size + length);
+            keys[rows] = source.keys[row];
+            System.arraycopy(source.neighbors, from, neighbors, size, length);
+            System.arraycopy(source.weights, from, weights, size, length);
+            size += length;
+            offsets[++rows] = size;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > neighbors.length) {
+                int newLength = Math.max(capacity, neighbors.length * 2);
+                neighbors = Arrays.copyOf(neighbors, newLength);
+                weights = Arrays.copyOf(weights, newLength);
+            }
+        }
+
+        private Csr build() {
+            return new Csr(Arrays.copyOf(keys, rows), Arrays.copyOf(offsets, rows + 1),
+                    Arrays.copyOf(neighbors, size), Arrays.copyOf(weights, size));
+        }
+    }
+}
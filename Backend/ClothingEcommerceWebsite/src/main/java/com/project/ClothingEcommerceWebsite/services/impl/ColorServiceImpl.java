@@ -3,9 +3,11 @@ package com.project.ClothingEcommerceWebsite.services.impl;
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateColorRequest;
 import com.project.ClothingEcommerceWebsite.exception.BadRequestException;
 import com.project.ClothingEcommerceWebsite.models.Color;
+import com.project.ClothingEcommerceWebsite.models.Enums;
 import com.project.ClothingEcommerceWebsite.repositories.ColorRepository;
 import com.project.ClothingEcommerceWebsite.repositories.ProductVariantRepository;
 import com.project.ClothingEcommerceWebsite.services.ColorService;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,8 +21,10 @@ public class ColorServiceImpl implements ColorService {
 
     private final ColorRepository colorRepository;
     private final ProductVariantRepository productVariantRepository;
+    private final CatalogChangeLog catalogChangeLog;
 
     @Override
+    @Transactional
     public Color createColor(CreateColorRequest request) {
         if (colorRepository.existsByCode(request.getCode())) {
             throw new RuntimeException("Color code already exists");
@@ -34,7 +38,9 @@ public class ColorServiceImpl implements ColorService {
                 .name(request.getName().trim())
                 .build();
 
-        return colorRepository.save(color);
+        Color saved = colorRepository.save(color);
+        catalogChangeLog.upsert(Enums.CatalogEntity.COLOR, saved.getId());
+        return saved;
     }
 
     @Override
@@ -49,15 +55,19 @@ public class ColorServiceImpl implements ColorService {
     }
 
     @Override
+    @Transactional
     public Color updateColor(Long id, CreateColorRequest request) {
         Color color = colorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Color not found with id: " + id));
         color.setCode(request.getCode().trim().toUpperCase());
         color.setName(request.getName().trim());
-        return colorRepository.save(color);
+        Color saved = colorRepository.save(color);
+        catalogChangeLog.upsert(Enums.CatalogEntity.COLOR, saved.getId());
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteColor(Long id) {
         if (!colorRepository.existsById(id)) {
             throw new RuntimeException("Color not found with id: " + id);
@@ -68,5 +78,6 @@ public class ColorServiceImpl implements ColorService {
             );
         }
         colorRepository.deleteById(id);
+        catalogChangeLog.delete(Enums.CatalogEntity.COLOR, id);
     }
 }
@@ -1,6 +1,7 @@
 package com.project.ClothingEcommerceWebsite.services.impl;
 
 import com.project.ClothingEcommerceWebsite.dtos.request.UpdateInventoryRequest;
+import com.project.ClothingEcommerceWebsite.models.Enums;
 import com.project.ClothingEcommerceWebsite.models.Inventory;
 import com.project.ClothingEcommerceWebsite.models.ProductVariant;
 import com.project.ClothingEcommerceWebsite.repositories.InventoryRepository;
@@ -19,6 +20,9 @@ public class InventoryServiceImpl implements InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final ProductVariantRepository productVariantRepository;
+    private final ProductDetailCache productDetailCache;
+    private final ProductAvailabilityIndex availabilityIndex;
+    private final CatalogChangeLog catalogChangeLog;
 
     @Override
     public List<Inventory> getAllInventories() {
@@ -48,6 +52,10 @@ public class InventoryServiceImpl implements InventoryService {
                 .orElseThrow(() -> new RuntimeException("No inventory found for variant id: " + request.getVariantId()));
 
         inventory.setQuantity(request.getQuantity());
-        return inventoryRepository.save(inventory);
+        Inventory saved = inventoryRepository.save(inventory);
+        productDetailCache.invalidate(variant.getProduct().getId());
+        availabilityIndex.set(variant.getProduct().getId(), variant.getId(), request.getQuantity());
+        catalogChangeLog.upsert(Enums.CatalogEntity.INVENTORY, variant.getId());
+        return saved;
     }
 }
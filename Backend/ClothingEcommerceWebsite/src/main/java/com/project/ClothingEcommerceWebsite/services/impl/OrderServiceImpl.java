@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,6 +28,13 @@ public class OrderServiceImpl implements OrderService {
     private final UserRepository userRepository;
     private final CouponRepository couponRepository;
     private final CouponRedemptionRepository redemptionRepository;
+    private final CartViewCache cartViewCache;
+    private final Optional<CartWriteBehindStore> cartWriteBehind;
+    private final SalesRankingEngine salesRankingEngine;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final ProductDetailCache productDetailCache;
+    private final ProductAvailabilityIndex availabilityIndex;
+    private final CatalogChangeLog catalogChangeLog;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -38,12 +46,15 @@ public class OrderServiceImpl implements OrderService {
         Cart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new RuntimeException("Cart not found"));
 
+        // Ghi các thay đổi cart còn nằm trong bộ nhớ xuống DB trong cùng transaction trước khi đọc
+        cartWriteBehind.ifPresent(store -> store.flushCart(cart.getId()));
         List<CartItem> cartItems = cartItemRepository.findByCartId(cart.getId());
         if (cartItems.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
+        // Giá được chốt tại thời điểm đặt hàng theo giá hiện tại của variant
         double subtotal = cartItems.stream()
-                .mapToDouble(i -> i.getUnitPrice() * i.getQuantity())
+                .mapToDouble(i -> i.currentPrice() * i.getQuantity())
                 .sum();
         double shippingFee = 30000.0;
         double discountTotal = 0.0;
@@ -95,24 +106,32 @@ public class OrderServiceImpl implements OrderService {
             }
             inventory.setQuantity(inventory.getQuantity() - i.getQuantity());
             inventoryRepository.save(inventory);
+            productDetailCache.invalidate(variant.getProduct().getId());
+            availabilityIndex.adjust(variant.getProduct().getId(), variant.getId(), -i.getQuantity());
+            catalogChangeLog.upsert(Enums.CatalogEntity.INVENTORY, variant.getId());
+            Double unitPrice = i.currentPrice();
             return OrderItem.builder()
                     .order(order)
                     .product(variant.getProduct())
                     .variant(variant)
                     .productName(variant.getProduct().getName())
                     .sku(variant.getSku())
-                    .unitPrice(i.getUnitPrice())
+                    .unitPrice(unitPrice)
                     .quantity(i.getQuantity())
-                    .lineTotal(i.getUnitPrice() * i.getQuantity())
+                    .lineTotal(unitPrice * i.getQuantity())
                     .build();
         }).collect(Collectors.toList());
         orderItemRepository.saveAll(orderItems);
+        salesRankingEngine.recordPlaced(orderItems, order.getCreatedAt());
+        coPurchaseIndex.recordOrder(orderItems);
 
         if (appliedCoupon != null) {
             redeemCoupon(appliedCoupon, user, order);
         }
         // Xóa giỏ hàng sau khi đặt
         cartItemRepository.deleteAll(cartItems);
+        cartViewCache.invalidate(cart.getId());
+        cartWriteBehind.ifPresent(store -> store.evict(cart.getId()));
 
         return order;
     }
@@ -142,6 +161,7 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional
     public void cancelOrder(Long userId, Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -166,11 +186,16 @@ public class OrderServiceImpl implements OrderService {
                     .orElseThrow(() -> new NotFoundException("Inventory not found!!"));
             inventory.setQuantity(inventory.getQuantity() + item.getQuantity());
             inventoryRepository.save(inventory);
+            productDetailCache.invalidate(item.getProduct().getId());
+            availabilityIndex.adjust(item.getProduct().getId(), variant.getId(), item.getQuantity());
+            catalogChangeLog.upsert(Enums.CatalogEntity.INVENTORY, variant.getId());
         }
+        salesRankingEngine.recordCancelled(orderItems, order.getCreatedAt());
         redemptionRepository.findByOrderId(orderId).ifPresent(redemptionRepository::delete);
     }
 
     @Override
+    @Transactional
     public Order updateOrderStatus(Long orderId, String status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -202,7 +227,11 @@ public class OrderServiceImpl implements OrderService {
                             .orElseThrow(() -> new NotFoundException("Inventory not found!!"));
                     inventory.setQuantity(inventory.getQuantity() + item.getQuantity());
                     inventoryRepository.save(inventory);
+                    productDetailCache.invalidate(item.getProduct().getId());
+                    availabilityIndex.adjust(item.getProduct().getId(), variant.getId(), item.getQuantity());
+                    catalogChangeLog.upsert(Enums.CatalogEntity.INVENTORY, variant.getId());
                 }
+                salesRankingEngine.recordCancelled(orderItems, order.getCreatedAt());
                 redemptionRepository.findByOrderId(orderId).ifPresent(redemptionRepository::delete);
             }
         }
@@ -0,0 +1,197 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.AvailabilityResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ColorResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.SizeResponse;
+import com.project.ClothingEcommerceWebsite.models.Color;
+import com.project.ClothingEcommerceWebsite.models.Inventory;
+import com.project.ClothingEcommerceWebsite.models.ProductVariant;
+import com.project.ClothingEcommerceWebsite.models.Size;
+import com.project.ClothingEcommerceWebsite.repositories.InventoryRepository;
+import com.project.ClothingEcommerceWebsite.repositories.ProductVariantRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Ma trận tồn kho size x màu của từng sản phẩm, thay cho danh sách variants/inventories đầy đủ.
+// Đặt/hủy đơn và sửa tồn kho cập nhật thẳng vào ô tương ứng sau khi commit; đổi bộ variant thì dựng lại.
+@Component
+public class ProductAvailabilityIndex {
+
+    private final ProductVariantRepository productVariantRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ExpiringCache<Long, Matrix> cache;
+    // Tăng sau mỗi thay đổi của từng sản phẩm; ma trận nạp xen giữa một thay đổi của chính sản phẩm đó
+    // thì không được cache, thay đổi ở sản phẩm khác không ảnh hưởng
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    public ProductAvailabilityIndex(ProductVariantRepository productVariantRepository,
+                                    InventoryRepository inventoryRepository,
+                                    @Value("${product.availability.ttl-seconds}") long ttlSeconds,
+                                    @Value("${product.availability.max-size}") int maxSize) {
+        this.productVariantRepository = productVariantRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.cache = new ExpiringCache<>(ttlSeconds * 1000, maxSize);
+    }
+
+    private static final class Matrix {
+        private final List<SizeResponse> sizes;
+        private final List<ColorResponse> colors;
+        private final long[] variantIds;
+        private final AtomicIntegerArray stock;
+        private final Map<Long, Integer> cellByVariant;
+
+        private Matrix(List<SizeResponse> sizes, List<ColorResponse> colors, long[] variantIds,
+                       AtomicIntegerArray stock, Map<Long, Integer> cellByVariant) {
+            this.sizes = sizes;
+            this.colors = colors;
+            this.variantIds = variantIds;
+            this.stock = stock;
+            this.cellByVariant = cellByVariant;
+        }
+    }
+
+    public AvailabilityResponse get(Long productId) {
+        Matrix matrix = cache.get(productId);
+        if (matrix == null) {
+            long before = generations.getOrDefault(productId, 0L);
+            matrix = load(productId);
+            if (before == generations.getOrDefault(productId, 0L)) {
+                cache.put(productId, matrix);
+            }
+        }
+        return toResponse(matrix);
+    }
+
+    // Dựng từ variants/inventories đã nạp sẵn (trang chi tiết, batch) mà không query thêm
+    public AvailabilityResponse of(List<ProductVariant> variants, List<Inventory> inventories) {
+        Map<Long, Integer> stockByVariant = new HashMap<>();
+        for (Inventory inventory : inventories) {
+            stockByVariant.put(inventory.getProductVariant().getId(), inventory.getQuantity());
+        }
+        return toResponse(build(variants, stockByVariant));
+    }
+
+    private static AvailabilityResponse toResponse(Matrix matrix) {
+        int[] stock = new int[matrix.stock.length()];
+        for (int i = 0; i < stock.length; i++) {
+            stock[i] = matrix.stock.get(i);
+        }
+        return AvailabilityResponse.builder()
+                .sizes(matrix.sizes)
+                .colors(matrix.colors)
+                .stock(stock)
+                .variantIds(matrix.variantIds.clone())
+                .build();
+    }
+
+    private Matrix load(Long productId) {
+        List<ProductVariant> variants = productVariantRepository.findAllByProductId(productId);
+        List<Long> variantIds = variants.stream().map(ProductVariant::getId).toList();
+        Map<Long, Integer> stockByVariant = new HashMap<>();
+        if (!variantIds.isEmpty()) {
+            for (InventoryRepository.VariantStockView row : inventoryRepository.findStockByVariantIdIn(variantIds)) {
+                stockByVariant.put(row.getVariantId(), row.getQuantity());
+            }
+        }
+        return build(variants, stockByVariant);
+    }
+
+    private static Matrix build(List<ProductVariant> variants, Map<Long, Integer> stockByVariant) {
+        Map<Long, Size> sizeById = new HashMap<>();
+        Map<Long, Color> colorById = new HashMap<>();
+        for (ProductVariant variant : variants) {
+            if (variant.getSize() != null && variant.getColor() != null) {
+                sizeById.putIfAbsent(variant.getSize().getId(), variant.getSize());
+                colorById.putIfAbsent(variant.getColor().getId(), variant.getColor());
+            }
+        }
+        List<Size> sizes = new ArrayList<>(sizeById.values());
+        sizes.sort(Comparator.comparing(Size::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Size::getId));
+        List<Color> colors = new ArrayList<>(colorById.values());
+        colors.sort(Comparator.comparing(Color::getId));
+        Map<Long, Integer> sizeIndex = new HashMap<>();
+        for (int i = 0; i < sizes.size(); i++) {
+            sizeIndex.put(sizes.get(i).getId(), i);
+        }
+        Map<Long, Integer> colorIndex = new HashMap<>();
+        for (int j = 0; j < colors.size(); j++) {
+            colorIndex.put(colors.get(j).getId(), j);
+        }
+
+        int cells = sizes.size() * colors.size();
+        long[] variantIds = new long[cells];
+        AtomicIntegerArray stock = new AtomicIntegerArray(cells);
+        for (int i = 0; i < cells; i++) {
+            stock.set(i, -1);
+        }
+        Map<Long, Integer> cellByVariant = new HashMap<>();
+        for (ProductVariant variant : variants) {
+            if (variant.getSize() == null || variant.getColor() == null) {
+                continue;
+            }
+            int cell = sizeIndex.get(variant.getSize().getId()) * colors.size() + colorIndex.get(variant.getColor().getId());
+            variantIds[cell] = variant.getId();
+            stock.set(cell, Math.max(0, stockByVariant.getOrDefault(variant.getId(), 0)));
+            cellByVariant.put(variant.getId(), cell);
+        }
+
+        return new Matrix(
+                sizes.stream().map(size -> SizeResponse.builder()
+                        .id(size.getId())
+                        .code(size.getCode())
+                        .name(size.getName())
+                        .sortOrder(size.getSortOrder())
+                        .build()).toList(),
+                colors.stream().map(color -> ColorResponse.builder()
+                        .id(color.getId())
+                        .code(color.getCode())
+                        .name(color.getName())
+                        .build()).toList(),
+                variantIds, stock, cellByVariant);
+    }
+
+    // Đặt đơn (delta âm) hoặc hủy đơn (delta dương)
+    public void adjust(Long productId, Long variantId, int delta) {
+        AfterCommit.run(() -> {
+            bump(productId);
+            Matrix matrix = cache.get(productId);
+            Integer cell = matrix != null ? matrix.cellByVariant.get(variantId) : null;
+            if (cell != null) {
+                matrix.stock.getAndUpdate(cell, current -> Math.max(0, current + delta));
+            }
+        });
+    }
+
+    // Admin sửa số lượng tồn kho
+    public void set(Long productId, Long variantId, int quantity) {
+        AfterCommit.run(() -> {
+            bump(productId);
+            Matrix matrix = cache.get(productId);
+            Integer cell = matrix != null ? matrix.cellByVariant.get(variantId) : null;
+            if (cell != null) {
+                matrix.stock.set(cell, Math.max(0, quantity));
+            }
+        });
+    }
+
+    // Bộ variant thay đổi (sửa/xóa sản phẩm)
+    public void invalidate(Long productId) {
+        bump(productId);
+        cache.invalidate(productId);
+        AfterCommit.run(() -> {
+            bump(productId);
+            cache.invalidate(productId);
+        });
+    }
+
+    private void bump(Long productId) {
+        generations.merge(productId, 1L, Long::sum);
+    }
+}
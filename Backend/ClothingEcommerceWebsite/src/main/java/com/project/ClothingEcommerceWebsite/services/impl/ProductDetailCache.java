@@ -0,0 +1,128 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// JSON đã render sẵn của GET /products/{id} kèm ETag theo nội dung, bản mặc định và bản kèm variants/inventories
+// được cache riêng.
+// Nhiều request cùng miss một sản phẩm chỉ dựng lại một lần (single-flight), các request còn lại đợi kết quả đó.
+@Component
+public class ProductDetailCache {
+
+    public record Rendered(byte[] body, String etag) {
+    }
+
+    private record Key(Long productId, boolean withVariants) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ExpiringCache<Key, Rendered> cache;
+    private final Map<Key, CompletableFuture<Rendered>> inFlight = new ConcurrentHashMap<>();
+    // Tăng khi invalidate; bản dựng bắt đầu trước lần invalidate thì không được ghi vào cache
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public ProductDetailCache(ObjectMapper objectMapper,
+                              @Value("${product.detail.cache.ttl-seconds}") long ttlSeconds,
+                              @Value("${product.detail.cache.max-size}") int maxSize) {
+        this.objectMapper = objectMapper;
+        this.cache = new ExpiringCache<>(ttlSeconds * 1000, maxSize);
+    }
+
+    public Rendered get(Long productId, boolean withVariants, Supplier<Object> loader) {
+        Key key = new Key(productId, withVariants);
+        Rendered cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Rendered> mine = new CompletableFuture<>();
+        CompletableFuture<Rendered> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        try {
+            long startEpoch = epoch.get();
+            long startGeneration = generations.getOrDefault(productId, 0L);
+            Rendered rendered = render(loader.get());
+            if (startEpoch == epoch.get() && startGeneration == generations.getOrDefault(productId, 0L)) {
+                cache.put(key, rendered);
+            }
+            mine.complete(rendered);
+            return rendered;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Rendered render(Object response) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            return new Rendered(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize product detail: " + e.getMessage());
+        }
+    }
+
+    // If-None-Match có thể chứa nhiều ETag, ETag yếu (W/) hoặc *
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Xóa ngay và xóa lại sau khi transaction kết thúc, tránh request xen giữa nạp lại dữ liệu cũ
+    public void invalidate(Long productId) {
+        AfterCommit.runNowAndAfterCompletion(() -> invalidateNow(productId));
+    }
+
+    public void invalidateAll() {
+        AfterCommit.runNowAndAfterCompletion(this::invalidateAllNow);
+    }
+
+    private void invalidateNow(Long productId) {
+        generations.merge(productId, 1L, Long::sum);
+        for (boolean withVariants : new boolean[]{false, true}) {
+            Key key = new Key(productId, withVariants);
+            inFlight.remove(key);
+            cache.invalidate(key);
+        }
+    }
+
+    private void invalidateAllNow() {
+        epoch.incrementAndGet();
+        inFlight.clear();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,226 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.RatingSummaryResponse;
+import com.project.ClothingEcommerceWebsite.exception.ServiceUnavailableException;
+import com.project.ClothingEcommerceWebsite.models.Category;
+import com.project.ClothingEcommerceWebsite.models.Inventory;
+import com.project.ClothingEcommerceWebsite.models.Product;
+import com.project.ClothingEcommerceWebsite.models.ProductImage;
+import com.project.ClothingEcommerceWebsite.models.ProductVariant;
+import com.project.ClothingEcommerceWebsite.repositories.InventoryRepository;
+import com.project.ClothingEcommerceWebsite.repositories.ProductImageRepository;
+import com.project.ClothingEcommerceWebsite.repositories.ProductRepository;
+import com.project.ClothingEcommerceWebsite.repositories.ProductVariantRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Đọc các phần của trang chi tiết sản phẩm (product, tồn kho, ảnh, variant, rating).
+// Khi bật parallel, các query độc lập chạy đồng thời trên pool riêng, mỗi query một transaction read-only
+// (một connection riêng); query lỗi thì hủy các query còn lại. Entity trả về đã detach nên mọi quan hệ LAZY
+// cần cho response được nạp ngay trong transaction của worker.
+// Connection pool không còn đủ chỗ trống thì đọc tuần tự trên thread của request: request chậm đi chứ không lỗi.
+// Quá timeout thì trả 503 ngay thay vì đọc lại tuần tự (sẽ nhân đôi tải lên DB đang chậm); transaction của
+// worker có query timeout nên MySQL tự hủy câu lệnh còn chạy, cancel(true) không dừng được JDBC.
+@Component
+public class ProductDetailLoader {
+
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductRatingAggregator ratingAggregator;
+    private final TransactionTemplate readOnlyTransaction;
+    private final HikariDataSource hikari;
+    private final boolean parallel;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private static final int PARTS = 5;
+
+    public ProductDetailLoader(ProductRepository productRepository,
+                               InventoryRepository inventoryRepository,
+                               ProductImageRepository productImageRepository,
+                               ProductVariantRepository productVariantRepository,
+                               ProductRatingAggregator ratingAggregator,
+                               PlatformTransactionManager transactionManager,
+                               DataSource dataSource,
+                               @Value("${product.detail.parallel.enabled}") boolean parallel,
+                               @Value("${product.detail.parallel.pool-size}") int poolSize,
+                               @Value("${product.detail.parallel.reserved-connections}") int reservedConnections,
+                               @Value("${product.detail.parallel.queue-capacity}") int queueCapacity,
+                               @Value("${product.detail.parallel.timeout-ms}") long timeoutMs) {
+        this.productRepository = productRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.productImageRepository = productImageRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.ratingAggregator = ratingAggregator;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Timeout transaction được Spring áp xuống mọi query của worker (Statement.setQueryTimeout, đơn vị giây)
+        this.readOnlyTransaction.setTimeout(timeoutSeconds(timeoutMs));
+        this.hikari = hikariOf(dataSource);
+        this.timeoutMs = timeoutMs;
+        // Worker không được dùng phần connection dành cho các thread request (mỗi thread giữ một connection
+        // suốt request do open-in-view)
+        if (hikari != null) {
+            poolSize = Math.min(poolSize, hikari.getMaximumPoolSize() - reservedConnections);
+        }
+        if (parallel && poolSize < 2) {
+            System.err.println("Warning: Not enough connections for parallel product detail loading, using sequential reads");
+            parallel = false;
+        }
+        this.parallel = parallel;
+        poolSize = Math.max(poolSize, 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        // Hàng đợi đầy thì chạy ngay trên thread của request, tương đương đường tuần tự
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "product-detail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public record Parts(Product product, List<Inventory> inventories, List<ProductImage> images,
+                        List<ProductVariant> variants, RatingSummaryResponse rating) {
+    }
+
+    // Hibernate làm tròn xuống thời gian còn lại theo giây nên cộng thêm 1 giây, query không bị hủy trước hạn chờ
+    private static int timeoutSeconds(long timeoutMs) {
+        return (int) TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999) + 1;
+    }
+
+    private static HikariDataSource hikariOf(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException ignored) {
+        }
+        return null;
+    }
+
+    public Parts load(Long id) {
+        if (!parallel || !hasSpareConnections()) {
+            return loadSequential(id);
+        }
+        return loadParallel(id);
+    }
+
+    // Chỉ chạy song song khi pool còn đủ connection rảnh (hoặc còn được mở thêm) cho cả năm query
+    private boolean hasSpareConnections() {
+        // Pool chỉ được tạo khi có connection đầu tiên
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return true;
+        }
+        int spare = pool.getIdleConnections() + hikari.getMaximumPoolSize() - pool.getTotalConnections();
+        return spare >= PARTS && pool.getThreadsAwaitingConnection() == 0;
+    }
+
+    static class ParallelTimeoutException extends ServiceUnavailableException {
+        ParallelTimeoutException(String message, long retryAfterSeconds) {
+            super(message, retryAfterSeconds);
+        }
+    }
+
+    public Parts loadSequential(Long id) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return new Parts(product,
+                inventoryRepository.findAllByProductVariant_Product_Id(id),
+                productImageRepository.findAllByProductId(id),
+                productVariantRepository.findAllByProductId(id),
+                ratingAggregator.summaryOf(id));
+    }
+
+    public Parts loadParallel(Long id) {
+        ExecutorCompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Object>> futures = new ArrayList<>(PARTS);
+        Future<Object> product = submit(completion, futures, () -> productRepository.findById(id)
+                .map(ProductDetailLoader::initializeCategories));
+        Future<Object> inventories = submit(completion, futures, () -> inventoryRepository.findDetailByProductId(id));
+        Future<Object> images = submit(completion, futures, () -> productImageRepository.findAllByProductId(id));
+        Future<Object> variants = submit(completion, futures, () -> productVariantRepository.findDetailByProductId(id));
+        Future<Object> rating = submit(completion, futures, () -> ratingAggregator.summaryOf(id));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Object> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    throw new ParallelTimeoutException("Timed out loading product with id: " + id,
+                            TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999));
+                }
+                // Ném lỗi ngay khi một query thất bại, không đợi các query khác
+                done.get();
+            }
+            Optional<?> found = (Optional<?>) product.get();
+            if (found.isEmpty()) {
+                throw new RuntimeException("Product not found with id: " + id);
+            }
+            return new Parts((Product) found.get(), cast(inventories.get()), cast(images.get()),
+                    cast(variants.get()), (RatingSummaryResponse) rating.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading product with id: " + id);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for (Future<Object> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Future<Object> submit(ExecutorCompletionService<Object> completion, List<Future<Object>> futures,
+                                  Callable<Object> query) {
+        Future<Object> future = completion.submit(() -> readOnlyTransaction.execute(status -> {
+            try {
+                return query.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }));
+        futures.add(future);
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cast(Object value) {
+        return (List<T>) value;
+    }
+
+    // Danh mục của sản phẩm được serialize cùng chuỗi danh mục cha (parentId là LAZY)
+    private static Product initializeCategories(Product product) {
+        for (Category category = product.getCategory(); category != null; category = category.getParentId()) {
+            Hibernate.initialize(category);
+        }
+        return product;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
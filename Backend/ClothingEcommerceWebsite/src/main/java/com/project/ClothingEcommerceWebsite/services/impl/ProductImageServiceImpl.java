@@ -1,39 +1,73 @@
 package com.project.ClothingEcommerceWebsite.services.impl;
 
+import com.project.ClothingEcommerceWebsite.models.Enums;
 import com.project.ClothingEcommerceWebsite.models.Product;
 import com.project.ClothingEcommerceWebsite.models.ProductImage;
 import com.project.ClothingEcommerceWebsite.repositories.ProductImageRepository;
 import com.project.ClothingEcommerceWebsite.repositories.ProductRepository;
 import com.project.ClothingEcommerceWebsite.services.ProductImageService;
-import lombok.RequiredArgsConstructor;
+import com.project.ClothingEcommerceWebsite.utils.CloudinaryUtil;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
-@RequiredArgsConstructor
 public class ProductImageServiceImpl implements ProductImageService {
     private final ProductImageRepository imageRepository;
     private final CloudinaryService cloudinaryService;
     private final ProductRepository productRepository;
+    private final ProductDetailCache productDetailCache;
+    private final CatalogChangeLog catalogChangeLog;
+    private final TransactionTemplate transactionTemplate;
 
+    public ProductImageServiceImpl(ProductImageRepository imageRepository,
+                                   CloudinaryService cloudinaryService,
+                                   ProductRepository productRepository,
+                                   ProductDetailCache productDetailCache,
+                                   CatalogChangeLog catalogChangeLog,
+                                   PlatformTransactionManager transactionManager) {
+        this.imageRepository = imageRepository;
+        this.cloudinaryService = cloudinaryService;
+        this.productRepository = productRepository;
+        this.productDetailCache = productDetailCache;
+        this.catalogChangeLog = catalogChangeLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Upload lên Cloudinary nằm ngoài transaction để không giữ kết nối DB trong lúc chờ mạng;
+    // transaction chỉ bao phần insert ảnh và ghi nhật ký thay đổi
     @Override
     public List<ProductImage> uploadAndSaveImages(List<MultipartFile> files, Long productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found");
+        }
+        List<String> imageUrls = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                imageUrls.add(cloudinaryService.uploadImage(file));
+            }
+            return transactionTemplate.execute(status -> saveImages(imageUrls, productId));
+        } catch (RuntimeException e) {
+            // Ảnh đã upload nhưng không được lưu thì xóa để không bị mồ côi trên Cloudinary
+            deleteUploaded(imageUrls);
+            throw e;
+        }
+    }
+
+    private List<ProductImage> saveImages(List<String> imageUrls, Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        List<ProductImage> existingImages = imageRepository.findAllByProductId(productId);
-        int maxPosition = existingImages.stream()
+        int currentPosition = imageRepository.findAllByProductId(productId).stream()
                 .mapToInt(ProductImage::getPosition)
                 .max()
                 .orElse(0);
         List<ProductImage> savedImages = new ArrayList<>();
-        int currentPosition = maxPosition;
-        for (MultipartFile file : files) {
+        for (String imageUrl : imageUrls) {
             currentPosition++;
-            String imageUrl = cloudinaryService.uploadImage(file);
             ProductImage productImage = ProductImage.builder()
                     .imageUrl(imageUrl)
                     .product(product)
@@ -41,6 +75,18 @@ public class ProductImageServiceImpl implements ProductImageService {
                     .build();
             savedImages.add(imageRepository.save(productImage));
         }
+        productDetailCache.invalidate(productId);
+        catalogChangeLog.upsert(Enums.CatalogEntity.PRODUCT, productId);
         return savedImages;
     }
+
+    private void deleteUploaded(List<String> imageUrls) {
+        for (String imageUrl : imageUrls) {
+            try {
+                cloudinaryService.deleteImage(CloudinaryUtil.extractPublicIdFromUrl(imageUrl));
+            } catch (Exception e) {
+                System.err.println("Warning: Could not delete image: " + e.getMessage());
+            }
+        }
+    }
 }
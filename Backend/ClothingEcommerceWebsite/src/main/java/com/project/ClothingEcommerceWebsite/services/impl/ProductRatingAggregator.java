@@ -0,0 +1,121 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.RatingSummaryResponse;
+import com.project.ClothingEcommerceWebsite.models.ProductRatingSummary;
+import com.project.ClothingEcommerceWebsite.repositories.ProductRatingSummaryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+// Giữ bảng product_rating_summaries khớp với reviews: cộng dồn trong transaction của review,
+// và định kỳ tính lại toàn bộ để sửa các lệch (ví dụ review bị sửa trực tiếp trong DB)
+@Component
+public class ProductRatingAggregator {
+
+    private final ProductRatingSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductDetailCache productDetailCache;
+
+    public ProductRatingAggregator(ProductRatingSummaryRepository summaryRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   ProductDetailCache productDetailCache) {
+        this.summaryRepository = summaryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productDetailCache = productDetailCache;
+    }
+
+    public void onCreated(Long productId, int rating) {
+        apply(productId, 1, rating, rating, 1);
+    }
+
+    public void onDeleted(Long productId, int rating) {
+        apply(productId, -1, -rating, rating, -1);
+    }
+
+    public void onUpdated(Long productId, int oldRating, int newRating) {
+        if (oldRating == newRating) {
+            return;
+        }
+        int[] stars = new int[5];
+        stars[oldRating - 1]--;
+        stars[newRating - 1]++;
+        summaryRepository.applyDelta(productId, 0, newRating - oldRating,
+                stars[0], stars[1], stars[2], stars[3], stars[4]);
+        productDetailCache.invalidate(productId);
+    }
+
+    private void apply(Long productId, int count, int sum, int rating, int starDelta) {
+        int[] stars = new int[5];
+        stars[rating - 1] = starDelta;
+        summaryRepository.applyDelta(productId, count, sum, stars[0], stars[1], stars[2], stars[3], stars[4]);
+        productDetailCache.invalidate(productId);
+    }
+
+    // Tính lại từ reviews cho các sản phẩm chỉ định, trong transaction hiện tại
+    public void recompute(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        summaryRepository.deleteByProductIds(productIds);
+        summaryRepository.insertFromReviews(productIds);
+        productIds.forEach(productDetailCache::invalidate);
+    }
+
+    @Scheduled(cron = "${rating.rebuild-cron}")
+    public void rebuildAll() {
+        try {
+            Integer rebuilt = transactionTemplate.execute(status -> {
+                summaryRepository.deleteAllSummaries();
+                return summaryRepository.insertAllFromReviews();
+            });
+            productDetailCache.invalidateAll();
+            System.out.println("Rebuilt rating summaries for " + rebuilt + " products");
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not rebuild rating summaries: " + e.getMessage());
+        }
+    }
+
+    public RatingSummaryResponse summaryOf(Long productId) {
+        return summaryRepository.findById(productId)
+                .map(ProductRatingAggregator::toResponse)
+                .orElseGet(() -> toResponse(null));
+    }
+
+    // Một query cho cả trang sản phẩm; sản phẩm chưa có review nhận summary rỗng
+    public Map<Long, RatingSummaryResponse> summariesOf(Collection<Long> productIds) {
+        Map<Long, RatingSummaryResponse> result = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return result;
+        }
+        for (ProductRatingSummary summary : summaryRepository.findAllByProductIdIn(productIds)) {
+            result.put(summary.getProductId(), toResponse(summary));
+        }
+        for (Long productId : productIds) {
+            result.computeIfAbsent(productId, id -> toResponse(null));
+        }
+        return result;
+    }
+
+    private static RatingSummaryResponse toResponse(ProductRatingSummary summary) {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        if (summary == null) {
+            for (int star = 1; star <= 5; star++) {
+                histogram.put(star, 0);
+            }
+            return RatingSummaryResponse.builder().averageRating(0).reviewCount(0).histogram(histogram).build();
+        }
+        histogram.put(1, summary.getStar1());
+        histogram.put(2, summary.getStar2());
+        histogram.put(3, summary.getStar3());
+        histogram.put(4, summary.getStar4());
+        histogram.put(5, summary.getStar5());
+        return RatingSummaryResponse.builder()
+                .averageRating(summary.getAverageRating())
+                .reviewCount(summary.getReviewCount())
+                .histogram(histogram)
+                .build();
+    }
+}
@@ -8,9 +8,11 @@ import com.project.ClothingEcommerceWebsite.models.*;
 import com.project.ClothingEcommerceWebsite.repositories.*;
 import com.project.ClothingEcommerceWebsite.services.ProductService;
 import com.project.ClothingEcommerceWebsite.utils.CloudinaryUtil;
+import com.project.ClothingEcommerceWebsite.utils.FieldSelection;
 import com.project.ClothingEcommerceWebsite.utils.SlugUtil;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -33,6 +35,17 @@ public class ProductServiceImpl implements ProductService {
     private final ProductVariantRepository productVariantRepository;
     private final InventoryRepository inventoryRepository;
     private final CloudinaryService cloudinaryService;
+    private final ProductRatingAggregator ratingAggregator;
+    private final SimilarProductIndex similarProductIndex;
+    private final CategoryTree categoryTree;
+    private final SlugDirectory slugDirectory;
+    private final ProductDetailLoader productDetailLoader;
+    private final ProductDetailCache productDetailCache;
+    private final ProductAvailabilityIndex availabilityIndex;
+    private final CatalogChangeLog catalogChangeLog;
+
+    @Value("${product.batch-max-ids}")
+    private int batchMaxIds;
 
     @Override
     @Transactional
@@ -54,6 +67,9 @@ public class ProductServiceImpl implements ProductService {
                 .isPublished(request.getIsPublished())
                 .build();
         productRepository.save(product);
+        similarProductIndex.markChanged(product.getId());
+        slugDirectory.productSlugChanged(product.getId(), null, product.getSlug());
+        catalogChangeLog.upsert(Enums.CatalogEntity.PRODUCT, product.getId());
 
         List<Size> sizes = sizeRepository.findAllById(request.getSizeIds());
         List<Color> colors = colorRepository.findAllById(request.getColorIds());
@@ -78,16 +94,102 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<ProductListResponse> getAllProduct(Pageable pageable) {
-        Page<Product> pageProduct = productRepository.findAll(pageable);
-        List<Product> products = pageProduct.getContent();
+    public List<ProductListResponse> getAllProduct(Long categoryId, Pageable pageable, FieldSelection fields) {
+        if (!fields.includes("description")) {
+            return toSummaryResponses(productRepository.findSummaries(
+                    categoryId == null, categoryFilterOf(categoryId), pageable).getContent(), fields);
+        }
+        if (categoryId != null) {
+            return toListResponses(productRepository.findByCategoryIdIn(subtreeOf(categoryId), pageable).getContent());
+        }
+        return toListResponses(productRepository.findAll(pageable).getContent());
+    }
+
+    @Override
+    public List<ProductListResponse> getAllProductByRating(Long categoryId, Pageable pageable, FieldSelection fields) {
+        if (!fields.includes("description")) {
+            return toSummaryResponses(productRepository.findSummariesOrderByRating(
+                    categoryId == null, categoryFilterOf(categoryId), pageable).getContent(), fields);
+        }
+        if (categoryId != null) {
+            return toListResponses(productRepository.findByCategoryIdsOrderByRating(subtreeOf(categoryId), pageable).getContent());
+        }
+        return toListResponses(productRepository.findAllOrderByRating(pageable).getContent());
+    }
+
+    // Query có tham số IN nên cần danh sách khác rỗng cả khi không lọc danh mục
+    private List<Long> categoryFilterOf(Long categoryId) {
+        return categoryId != null ? subtreeOf(categoryId) : List.of(-1L);
+    }
 
+    // Chỉ query ảnh, tồn kho, rating, danh mục khi trường đó được yêu cầu
+    private List<ProductListResponse> toSummaryResponses(List<ProductRepository.ProductSummaryView> products,
+                                                         FieldSelection fields) {
+        List<Long> productIds = products.stream()
+                .map(ProductRepository.ProductSummaryView::getId)
+                .collect(Collectors.toList());
+        if (productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, List<ProductImageResponse>> imagesByProduct = fields.includes("images")
+                ? productImageRepository.findImageViewsByProductIdIn(productIds).stream()
+                        .collect(Collectors.groupingBy(ProductImageRepository.ProductImageView::getProductId,
+                                Collectors.mapping(img -> ProductImageResponse.builder()
+                                        .id(img.getId())
+                                        .image_url(img.getImageUrl())
+                                        .position(img.getPosition())
+                                        .build(), Collectors.toList())))
+                : Collections.emptyMap();
+        Map<Long, Integer> totalStockByProduct = fields.includes("totalStock")
+                ? inventoryRepository.findAllByProductVariant_Product_IdIn(productIds).stream()
+                        .collect(Collectors.groupingBy(
+                                inv -> inv.getProductVariant().getProduct().getId(),
+                                Collectors.summingInt(Inventory::getQuantity)))
+                : Collections.emptyMap();
+        Map<Long, RatingSummaryResponse> ratingByProduct = fields.includes("rating")
+                ? ratingAggregator.summariesOf(productIds)
+                : Collections.emptyMap();
+        Map<Long, Category> categoryById = fields.includes("category")
+                ? categoryRepository.findAllById(products.stream()
+                        .map(ProductRepository.ProductSummaryView::getCategoryId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())).stream()
+                        .collect(Collectors.toMap(Category::getId, c -> c))
+                : Collections.emptyMap();
+
+        return products.stream()
+                .map(product -> ProductListResponse.builder()
+                        .id(product.getId())
+                        .sku(product.getSku())
+                        .name(product.getName())
+                        .slug(product.getSlug())
+                        .basePrice(product.getBasePrice())
+                        .isPublished(product.getIsPublished())
+                        .category(product.getCategoryId() != null ? categoryById.get(product.getCategoryId()) : null)
+                        .images(imagesByProduct.getOrDefault(product.getId(), Collections.emptyList()))
+                        .totalStock(totalStockByProduct.getOrDefault(product.getId(), 0))
+                        .rating(ratingByProduct.get(product.getId()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // Lọc theo danh mục bao gồm mọi danh mục con cháu
+    private List<Long> subtreeOf(Long categoryId) {
+        List<Long> categoryIds = categoryTree.subtreeIds(categoryId);
+        if (categoryIds.isEmpty()) {
+            throw new NotFoundException("Category not found");
+        }
+        return categoryIds;
+    }
+
+    private List<ProductListResponse> toListResponses(List<Product> products) {
         List<Long> productIds = products.stream()
                 .map(Product::getId)
                 .collect(Collectors.toList());
 
         List<ProductImage> allImages = productImageRepository.findAllByProductIdIn(productIds);
         List<Inventory> allInventories = inventoryRepository.findAllByProductVariant_Product_IdIn(productIds);
+        Map<Long, RatingSummaryResponse> ratingByProduct = ratingAggregator.summariesOf(productIds);
 
         Map<Long, List<ProductImage>> imagesByProduct = allImages.stream()
                 .collect(Collectors.groupingBy(img -> img.getProduct().getId()));
@@ -125,15 +227,21 @@ public class ProductServiceImpl implements ProductService {
                             .isPublished(product.getIsPublished())
                             .images(imageDTOs)
                             .totalStock(totalStock)
+                            .rating(ratingByProduct.get(productId))
                             .build();
                 }).collect(Collectors.toList());
     }
 
     @Override
-    public List<ProductDetailResponse> searchByName(String name) {
-        List<Product> products = productRepository.findByNameContainingIgnoreCase(name);
-        return products.stream()
+    public List<ProductDetailResponse> searchByName(String name, Long categoryId) {
+        List<Product> products = productRepository.findByNameContainingIgnoreCase(name).stream()
                 .filter(Product::getIsPublished)
+                .filter(p -> categoryId == null
+                        || (p.getCategory() != null && categoryTree.isInSubtree(p.getCategory().getId(), categoryId)))
+                .collect(Collectors.toList());
+        Map<Long, RatingSummaryResponse> ratingByProduct = ratingAggregator.summariesOf(
+                products.stream().map(Product::getId).collect(Collectors.toList()));
+        return products.stream()
                 .map(p -> ProductDetailResponse.builder()
                         .id(p.getId())
                         .sku(p.getSku())
@@ -150,18 +258,62 @@ public class ProductServiceImpl implements ProductService {
                         .basePrice(p.getBasePrice())
                         .category(p.getCategory())
                         .isPublished(p.getIsPublished())
+                        .rating(ratingByProduct.get(p.getId()))
                         .build())
                 .collect(Collectors.toList());
     }
 
     @Override
-    public ProductDetailResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        List<Inventory> inventories = inventoryRepository.findAllByProductVariant_Product_Id(product.getId());
-        List<ProductImage> images = productImageRepository.findAllByProductId(product.getId());
-        List<ProductVariant> variants = productVariantRepository.findAllByProductId(product.getId());
+    public ProductDetailResponse getProductById(Long id, boolean withVariants) {
+        ProductDetailLoader.Parts parts = productDetailLoader.load(id);
+        ProductDetailResponse response = toDetailResponse(parts.product(), parts.inventories(), parts.images(),
+                parts.variants(), parts.rating());
+        // availability đã chứa đủ size x màu, tồn kho và variant id; hai danh sách gốc chỉ trả khi client yêu cầu
+        if (!withVariants) {
+            response.setVariants(null);
+            response.setInventories(null);
+        }
+        return response;
+    }
 
+    // Mỗi loại dữ liệu một query IN cho cả lô, thứ tự theo ids và bỏ id trùng/không tồn tại.
+    // Chạy trong một transaction để Product (EAGER) của variant/ảnh/tồn kho lấy từ persistence context
+    @Override
+    @Transactional
+    public List<ProductDetailResponse> getProductsByIds(List<Long> ids) {
+        List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (uniqueIds.size() > batchMaxIds) {
+            throw new BadRequestException("Tối đa " + batchMaxIds + " sản phẩm mỗi lần");
+        }
+        if (uniqueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Product> productById = productRepository.findAllById(uniqueIds).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+        List<Long> foundIds = uniqueIds.stream().filter(productById::containsKey).collect(Collectors.toList());
+        if (foundIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, List<Inventory>> inventoriesByProduct = inventoryRepository.findAllByProductVariant_Product_IdIn(foundIds)
+                .stream().collect(Collectors.groupingBy(inv -> inv.getProductVariant().getProduct().getId()));
+        Map<Long, List<ProductImage>> imagesByProduct = productImageRepository.findAllByProductIdIn(foundIds)
+                .stream().collect(Collectors.groupingBy(img -> img.getProduct().getId()));
+        Map<Long, List<ProductVariant>> variantsByProduct = productVariantRepository.findAllByProductIdIn(foundIds)
+                .stream().collect(Collectors.groupingBy(v -> v.getProduct().getId()));
+        Map<Long, RatingSummaryResponse> ratingByProduct = ratingAggregator.summariesOf(foundIds);
+
+        return foundIds.stream()
+                .map(id -> toDetailResponse(productById.get(id),
+                        inventoriesByProduct.getOrDefault(id, Collections.emptyList()),
+                        imagesByProduct.getOrDefault(id, Collections.emptyList()),
+                        variantsByProduct.getOrDefault(id, Collections.emptyList()),
+                        ratingByProduct.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    private ProductDetailResponse toDetailResponse(Product product, List<Inventory> inventories,
+                                                   List<ProductImage> images, List<ProductVariant> variants,
+                                                   RatingSummaryResponse rating) {
         List<ProductImageResponse> imageDTOs = images.stream()
                 .map(image -> ProductImageResponse.builder()
                         .id(image.getId())
@@ -205,6 +357,11 @@ public class ProductServiceImpl implements ProductService {
                 .sizes(sizeDTOs)
                 .colors(colorDTOs)
                 .images(imageDTOs)
+                .rating(rating)
+                .availability(availabilityIndex.of(variants, inventories))
+                .breadcrumbs(product.getCategory() != null
+                        ? categoryTree.breadcrumbs(product.getCategory().getId())
+                        : Collections.emptyList())
                 .build();
 
     }
@@ -219,6 +376,7 @@ public class ProductServiceImpl implements ProductService {
             throw new BadRequestException("SKU đã tồn tại. Vui lòng sử dụng SKU khác!!");
         }
 
+        String oldSlug = product.getSlug();
         List<ProductVariant> oldVariants = productVariantRepository.findAllByProductId(id);
 
         Set<String> oldVariantKeys = new HashSet<>();
@@ -313,7 +471,14 @@ public class ProductServiceImpl implements ProductService {
 
         if (productInfoChanged) {
             productRepository.save(product);
+            similarProductIndex.markChanged(product.getId());
+        }
+        if (!oldSlug.equals(product.getSlug())) {
+            slugDirectory.productSlugChanged(id, oldSlug, product.getSlug());
         }
+        productDetailCache.invalidate(id);
+        availabilityIndex.invalidate(id);
+        catalogChangeLog.upsert(Enums.CatalogEntity.PRODUCT, id);
 
         List<String> keepImageUrls = request.getKeepImageUrls();
         if (keepImageUrls == null) {
@@ -386,26 +551,12 @@ public class ProductServiceImpl implements ProductService {
                 variant.setPrice(product.getBasePrice());
                 productVariantRepository.save(variant);
             }
-            updateCartItemsPricesForProduct(product.getId(), product.getBasePrice());
+            // Giỏ hàng luôn tính theo giá hiện tại của variant nên không cần ghi lại cart_items
         }
 
         return product;
     }
 
-    private void updateCartItemsPricesForProduct(Long productId, Double newPrice) {
-        List<ProductVariant> variants = productVariantRepository.findAllByProductId(productId);
-        for (ProductVariant variant : variants) {
-            List<CartItem> cartItems = cartItemRepository.findByVariantId(variant.getId());
-
-            if (!cartItems.isEmpty()) {
-                for (CartItem item : cartItems) {
-                    item.setUnitPrice(newPrice);
-                    cartItemRepository.save(item);
-                }
-            }
-        }
-    }
-
     @Override
     @Transactional
     public void deleteProduct(Long id) {
@@ -426,6 +577,11 @@ public class ProductServiceImpl implements ProductService {
         }
         productImageRepository.deleteAll(productImages);
         productRepository.delete(product);
+        similarProductIndex.markChanged(id);
+        slugDirectory.productDeleted(id, product.getSlug());
+        productDetailCache.invalidate(id);
+        availabilityIndex.invalidate(id);
+        catalogChangeLog.delete(Enums.CatalogEntity.PRODUCT, id);
     }
 
 }
@@ -0,0 +1,40 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.ReviewPageResponse;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Trang review đầu tiên của mỗi sản phẩm (theo từng bộ lọc số sao), là trang được xem nhiều nhất
+@Component
+public class ReviewPageCache {
+
+    private final ExpiringCache<String, ReviewPageResponse> cache;
+
+    public ReviewPageCache(@Value("${review.first-page-cache.ttl-seconds}") long ttlSeconds,
+                           @Value("${review.first-page-cache.max-size}") int maxSize) {
+        this.cache = new ExpiringCache<>(ttlSeconds * 1000, maxSize);
+    }
+
+    public ReviewPageResponse get(Long productId, Integer rating, Supplier<ReviewPageResponse> loader) {
+        return cache.getOrLoad(keyOf(productId, rating), key -> loader.get());
+    }
+
+    public void invalidate(Long productId) {
+        AfterCommit.runNowAndAfterCompletion(() -> invalidateNow(productId));
+    }
+
+    private void invalidateNow(Long productId) {
+        cache.invalidate(keyOf(productId, null));
+        for (int rating = 1; rating <= 5; rating++) {
+            cache.invalidate(keyOf(productId, rating));
+        }
+    }
+
+    private static String keyOf(Long productId, Integer rating) {
+        return productId + ":" + (rating != null ? rating : "all");
+    }
+}
@@ -1,6 +1,9 @@
 package com.project.ClothingEcommerceWebsite.services.impl;
 
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateReviewRequest;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ReviewPageResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ReviewResponse;
+import com.project.ClothingEcommerceWebsite.exception.BadRequestException;
 import com.project.ClothingEcommerceWebsite.models.Order;
 import com.project.ClothingEcommerceWebsite.models.Product;
 import com.project.ClothingEcommerceWebsite.models.Review;
@@ -12,19 +15,27 @@ import com.project.ClothingEcommerceWebsite.repositories.UserRepository;
 import com.project.ClothingEcommerceWebsite.services.ReviewService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ReviewServiceImpl implements ReviewService {
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
+    private final ProductRatingAggregator ratingAggregator;
+    private final ReviewPageCache reviewPageCache;
 
     @Override
     @Transactional
@@ -47,23 +58,32 @@ public class ReviewServiceImpl implements ReviewService {
                 .content(request.getContent())
                 .createdAt(LocalDateTime.now())
                 .build();
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        ratingAggregator.onCreated(product.getId(), saved.getRating());
+        reviewPageCache.invalidate(product.getId());
+        return saved;
     }
 
     @Override
+    @Transactional
     public Review updateReview(Long userId, Long reviewId, CreateReviewRequest request) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
         if (!review.getUser().getId().equals(userId)) {
             throw new RuntimeException("Không có quyền sửa review này");
         }
+        int oldRating = review.getRating();
         review.setRating(request.getRating());
         review.setTitle(request.getTitle());
         review.setContent(request.getContent());
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        ratingAggregator.onUpdated(review.getProduct().getId(), oldRating, saved.getRating());
+        reviewPageCache.invalidate(review.getProduct().getId());
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteReview(Long userId, Long reviewId) {
         Review r = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
@@ -71,6 +91,8 @@ public class ReviewServiceImpl implements ReviewService {
             throw new RuntimeException("Không có quyền xóa review này");
         }
         reviewRepository.delete(r);
+        ratingAggregator.onDeleted(r.getProduct().getId(), r.getRating());
+        reviewPageCache.invalidate(r.getProduct().getId());
     }
 
     @Override
@@ -78,6 +100,62 @@ public class ReviewServiceImpl implements ReviewService {
         return reviewRepository.findAllByProductId(productId);
     }
 
+    @Override
+    public ReviewPageResponse getReviewPageByProduct(Long productId, Integer rating, String cursor, int size) {
+        if (rating != null && (rating < 1 || rating > 5)) {
+            throw new BadRequestException("Số sao phải từ 1 đến 5");
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (cursor == null || cursor.isEmpty()) {
+            if (pageSize == DEFAULT_PAGE_SIZE) {
+                return reviewPageCache.get(productId, rating, () -> loadPage(productId, rating, null, null, pageSize));
+            }
+            return loadPage(productId, rating, null, null, pageSize);
+        }
+        // Cursor có dạng <createdAt>_<id> của review cuối trang trước
+        int separator = cursor.lastIndexOf('_');
+        try {
+            LocalDateTime createdAt = LocalDateTime.parse(cursor.substring(0, separator));
+            Long id = Long.parseLong(cursor.substring(separator + 1));
+            return loadPage(productId, rating, createdAt, id, pageSize);
+        } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new BadRequestException("Cursor không hợp lệ");
+        }
+    }
+
+    private ReviewPageResponse loadPage(Long productId, Integer rating, LocalDateTime createdAt, Long id, int size) {
+        // Lấy dư một dòng để biết còn trang sau hay không
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ReviewRepository.ReviewView> rows = createdAt == null
+                ? reviewRepository.findFirstPage(productId, rating, limit)
+                : reviewRepository.findPageAfter(productId, rating, createdAt, id, limit);
+        boolean hasMore = rows.size() > size;
+        List<ReviewRepository.ReviewView> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ReviewRepository.ReviewView last = page.get(page.size() - 1);
+            nextCursor = last.getCreatedAt() + "_" + last.getId();
+        }
+        return ReviewPageResponse.builder()
+                .items(page.stream().map(ReviewServiceImpl::toResponse).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static ReviewResponse toResponse(ReviewRepository.ReviewView view) {
+        return ReviewResponse.builder()
+                .id(view.getId())
+                .productId(view.getProductId())
+                .userId(view.getUserId())
+                .userName(view.getUserName())
+                .rating(view.getRating())
+                .title(view.getTitle())
+                .content(view.getContent())
+                .approved(true)
+                .createdAt(view.getCreatedAt())
+                .build();
+    }
+
     @Override
     public List<Review> getReviewByUser(Long userId) {
         return reviewRepository.findAllByUserId(userId);
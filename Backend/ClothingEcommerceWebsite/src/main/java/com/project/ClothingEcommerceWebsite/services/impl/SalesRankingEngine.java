@@ -0,0 +1,341 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductRankingResponse;
+import com.project.ClothingEcommerceWebsite.exception.BadRequestException;
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.models.Order;
+import com.project.ClothingEcommerceWebsite.models.OrderItem;
+import com.project.ClothingEcommerceWebsite.repositories.OrderItemRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.SlidingWindowCounter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Đếm số lượng bán theo sản phẩm và variant trong 1 giờ / 1 ngày / 1 tuần gần nhất.
+// Đơn hàng được cộng/trừ sau khi transaction commit (rebuild đếm mỗi đơn đúng một lần); bảng xếp hạng theo danh mục được tính lại định kỳ
+// thành snapshot bất biến nên request chỉ đọc từ bộ nhớ.
+@Component
+public class SalesRankingEngine {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final int WEEK_HOURS = 24 * 7;
+    private static final Long ALL_CATEGORIES = -1L;
+
+    public enum Window {
+        HOUR, DAY, WEEK;
+
+        public static Window parse(String value) {
+            try {
+                return Window.valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("window phải là hour, day hoặc week");
+            }
+        }
+    }
+
+    private record Sale(Long productId, Long variantId, Long categoryId, int quantity) {
+    }
+
+    private record SaleEvent(long orderId, List<Sale> sales, long time, int sign) {
+    }
+
+    private final OrderItemRepository orderItemRepository;
+    private final int snapshotSize;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private volatile Counters counters = new Counters();
+    // Các sự kiện commit từ lúc rebuild bắt đầu (null khi không rebuild), chỉ truy cập trong synchronized (this)
+    private List<SaleEvent> sinceRebuild;
+    private final Object rebuildLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public SalesRankingEngine(OrderItemRepository orderItemRepository,
+                              @Value("${ranking.snapshot-size}") int snapshotSize) {
+        this.orderItemRepository = orderItemRepository;
+        this.snapshotSize = snapshotSize;
+    }
+
+    public void recordPlaced(List<OrderItem> items, LocalDateTime placedAt) {
+        afterCommit(items, placedAt, 1);
+    }
+
+    public void recordCancelled(List<OrderItem> items, LocalDateTime placedAt) {
+        afterCommit(items, placedAt, -1);
+    }
+
+    private static List<Sale> toSales(List<OrderItem> items) {
+        List<Sale> sales = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            Long categoryId = item.getProduct().getCategory() != null ? item.getProduct().getCategory().getId() : null;
+            Long variantId = item.getVariant() != null ? item.getVariant().getId() : null;
+            sales.add(new Sale(item.getProduct().getId(), variantId, categoryId, item.getQuantity()));
+        }
+        return sales;
+    }
+
+    private void afterCommit(List<OrderItem> items, LocalDateTime at, int sign) {
+        if (items.isEmpty()) {
+            return;
+        }
+        long time = at != null ? at.atZone(zone).toInstant().toEpochMilli() : System.currentTimeMillis();
+        Order order = items.get(0).getOrder();
+        SaleEvent event = new SaleEvent(order != null && order.getId() != null ? order.getId() : -1L,
+                toSales(items), time, sign);
+        AfterCommit.run(() -> apply(event));
+    }
+
+    private synchronized void apply(SaleEvent event) {
+        apply(counters, event, System.currentTimeMillis());
+        if (sinceRebuild != null) {
+            sinceRebuild.add(event);
+        }
+    }
+
+    private static void apply(Counters target, SaleEvent event, long now) {
+        for (Sale sale : event.sales()) {
+            target.add(sale, event.time(), now, event.sign());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            try {
+                synchronized (this) {
+                    sinceRebuild = new ArrayList<>();
+                }
+                Counters fresh = new Counters();
+                BitSet scanned = new BitSet();
+                long now = System.currentTimeMillis();
+                LocalDateTime since = LocalDateTime.now().minusHours(WEEK_HOURS);
+                for (OrderItemRepository.SaleView sale : orderItemRepository.findSalesSince(since, Enums.OrderStatus.CANCELLED)) {
+                    long time = sale.getCreatedAt().atZone(zone).toInstant().toEpochMilli();
+                    fresh.add(new Sale(sale.getProductId(), sale.getVariantId(), sale.getCategoryId(), sale.getQuantity()),
+                            time, now, 1);
+                    scanned.set(Math.toIntExact(sale.getOrderId()));
+                }
+                synchronized (this) {
+                    // Câu truy vấn đọc một snapshot nhất quán: đơn đã được quét thì lượt đặt đã nằm trong bộ đếm mới,
+                    // chỉ còn lượt hủy commit sau snapshot; đơn chưa được quét thì lượt hủy chỉ được trừ
+                    // khi lượt đặt của nó cũng nằm trong sinceRebuild
+                    Set<Long> replayedPlaced = new HashSet<>();
+                    now = System.currentTimeMillis();
+                    for (SaleEvent event : sinceRebuild) {
+                        boolean wasScanned = event.orderId() >= 0 && scanned.get(Math.toIntExact(event.orderId()));
+                        if (event.sign() > 0 && !wasScanned) {
+                            replayedPlaced.add(event.orderId());
+                            apply(fresh, event, now);
+                        } else if (event.sign() < 0 && (wasScanned || replayedPlaced.contains(event.orderId()))) {
+                            apply(fresh, event, now);
+                        }
+                    }
+                    counters = fresh;
+                }
+                refreshSnapshot();
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Could not rebuild sales rankings: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    sinceRebuild = null;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ranking.snapshot-interval-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void refreshSnapshot() {
+        long now = System.currentTimeMillis();
+        Counters current = counters;
+        current.evictEmpty(now);
+
+        Map<Window, Map<Long, List<ProductRankingResponse>>> bestsellers = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            bestsellers.put(window, rank(current, now, window, false));
+        }
+        snapshot = new Snapshot(bestsellers, rank(current, now, Window.DAY, true));
+    }
+
+    // Trending: lượng bán hôm nay so với trung bình mỗi ngày của tuần, ưu tiên sản phẩm đang tăng tốc
+    private static double trendScore(long day, long week) {
+        return day - week / 7.0;
+    }
+
+    private Map<Long, List<ProductRankingResponse>> rank(Counters source, long now, Window window, boolean trending) {
+        Map<Long, PriorityQueue<ProductRankingResponse>> heaps = new HashMap<>();
+        Comparator<ProductRankingResponse> order = Comparator.comparingDouble(ProductRankingResponse::getScore)
+                .thenComparingLong(ProductRankingResponse::getSold);
+        source.products.forEach((productId, counter) -> {
+            long sold = counter.sum(now, window);
+            if (sold <= 0) {
+                return;
+            }
+            double score = trending ? trendScore(sold, counter.sum(now, Window.WEEK)) : sold;
+            if (trending && score <= 0) {
+                return;
+            }
+            ProductRankingResponse entry = ProductRankingResponse.builder()
+                    .id(productId)
+                    .categoryId(counter.categoryId)
+                    .sold(sold)
+                    .score(score)
+                    .build();
+            offer(heaps.computeIfAbsent(ALL_CATEGORIES, k -> new PriorityQueue<>(order)), entry);
+            if (counter.categoryId != null) {
+                offer(heaps.computeIfAbsent(counter.categoryId, k -> new PriorityQueue<>(order)), entry);
+            }
+        });
+
+        Map<Long, List<ProductRankingResponse>> result = new HashMap<>();
+        heaps.forEach((categoryId, heap) -> {
+            List<ProductRankingResponse> list = new ArrayList<>(heap);
+            list.sort(order.reversed());
+            result.put(categoryId, Collections.unmodifiableList(list));
+        });
+        return result;
+    }
+
+    // Heap nhỏ nhất giới hạn snapshotSize phần tử
+    private void offer(PriorityQueue<ProductRankingResponse> heap, ProductRankingResponse entry) {
+        if (heap.size() < snapshotSize) {
+            heap.offer(entry);
+        } else if (heap.comparator().compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.offer(entry);
+        }
+    }
+
+    public List<ProductRankingResponse> bestsellers(Window window, Long categoryId, int limit) {
+        return top(snapshot.bestsellers.get(window), categoryId, limit);
+    }
+
+    public List<ProductRankingResponse> trending(Long categoryId, int limit) {
+        return top(snapshot.trending, categoryId, limit);
+    }
+
+    private static List<ProductRankingResponse> top(Map<Long, List<ProductRankingResponse>> byCategory,
+                                                    Long categoryId, int limit) {
+        List<ProductRankingResponse> list = byCategory.getOrDefault(
+                categoryId != null ? categoryId : ALL_CATEGORIES, Collections.emptyList());
+        return list.subList(0, Math.min(Math.max(limit, 0), list.size()));
+    }
+
+    // Variant bán chạy của một sản phẩm, tính trực tiếp từ bộ đếm
+    public List<ProductRankingResponse> topVariants(Long productId, Window window, int limit) {
+        long now = System.currentTimeMillis();
+        List<ProductRankingResponse> result = new ArrayList<>();
+        counters.variants.forEach((variantId, counter) -> {
+            if (productId.equals(counter.productId)) {
+                long sold = counter.sum(now, window);
+                if (sold > 0) {
+                    result.add(ProductRankingResponse.builder()
+                            .id(variantId)
+                            .categoryId(counter.categoryId)
+                            .sold(sold)
+                            .score(sold)
+                            .build());
+                }
+            }
+        });
+        result.sort(Comparator.comparingLong(ProductRankingResponse::getSold).reversed());
+        return result.subList(0, Math.min(Math.max(limit, 0), result.size()));
+    }
+
+    private static final class Counters {
+        private final Map<Long, ItemCounter> products = new ConcurrentHashMap<>();
+        private final Map<Long, ItemCounter> variants = new ConcurrentHashMap<>();
+
+        // Cộng trong compute để không chạy xen với evictEmpty trên cùng khóa
+        private void add(Sale sale, long time, long now, int sign) {
+            long delta = (long) sign * sale.quantity();
+            if (sign > 0) {
+                products.compute(sale.productId(), (id, counter) ->
+                        add(counter != null ? counter : new ItemCounter(sale.productId(), sale.categoryId()), time, now, delta));
+                if (sale.variantId() != null) {
+                    variants.compute(sale.variantId(), (id, counter) ->
+                            add(counter != null ? counter : new ItemCounter(sale.productId(), sale.categoryId()), time, now, delta));
+                }
+            } else {
+                products.computeIfPresent(sale.productId(), (id, counter) -> add(counter, time, now, delta));
+                if (sale.variantId() != null) {
+                    variants.computeIfPresent(sale.variantId(), (id, counter) -> add(counter, time, now, delta));
+                }
+            }
+        }
+
+        private static ItemCounter add(ItemCounter counter, long time, long now, long delta) {
+            counter.add(time, now, delta);
+            return counter;
+        }
+
+        // Bộ đếm không còn gì trong cửa sổ tuần thì bỏ để map không phình ra;
+        // kiểm tra lại trong computeIfPresent để không làm mất lần cộng vừa chen vào
+        private void evictEmpty(long now) {
+            evictEmpty(products, now);
+            evictEmpty(variants, now);
+        }
+
+        private static void evictEmpty(Map<Long, ItemCounter> counters, long now) {
+            for (Map.Entry<Long, ItemCounter> entry : counters.entrySet()) {
+                if (entry.getValue().isIdle(now)) {
+                    counters.computeIfPresent(entry.getKey(), (id, counter) -> counter.isIdle(now) ? null : counter);
+                }
+            }
+        }
+    }
+
+    private static final class ItemCounter {
+        private final Long productId;
+        private final Long categoryId;
+        // Bucket 1 phút cho cửa sổ giờ, bucket 1 giờ cho cửa sổ ngày và tuần
+        private final SlidingWindowCounter minutes = new SlidingWindowCounter(MINUTE, 60);
+        private final SlidingWindowCounter hours = new SlidingWindowCounter(HOUR, WEEK_HOURS);
+
+        private ItemCounter(Long productId, Long categoryId) {
+            this.productId = productId;
+            this.categoryId = categoryId;
+        }
+
+        private volatile long lastUpdated;
+
+        private void add(long time, long now, long delta) {
+            lastUpdated = now;
+            minutes.add(time, now, delta);
+            hours.add(time, now, delta);
+        }
+
+        private boolean isIdle(long now) {
+            return now - lastUpdated > MINUTE && sum(now, Window.WEEK) == 0;
+        }
+
+        private long sum(long now, Window window) {
+            return switch (window) {
+                case HOUR -> minutes.sum(now, 60);
+                case DAY -> hours.sum(now, 24);
+                case WEEK -> hours.sum(now, WEEK_HOURS);
+            };
+        }
+    }
+
+    private record Snapshot(Map<Window, Map<Long, List<ProductRankingResponse>>> bestsellers,
+                            Map<Long, List<ProductRankingResponse>> trending) {
+        private static final Snapshot EMPTY = new Snapshot(emptyBestsellers(), Collections.emptyMap());
+
+        private static Map<Window, Map<Long, List<ProductRankingResponse>>> emptyBestsellers() {
+            Map<Window, Map<Long, List<ProductRankingResponse>>> map = new EnumMap<>(Window.class);
+            for (Window window : Window.values()) {
+                map.put(window, Collections.emptyMap());
+            }
+            return map;
+        }
+    }
+}
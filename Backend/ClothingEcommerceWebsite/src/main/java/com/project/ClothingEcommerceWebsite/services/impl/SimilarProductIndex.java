@@ -0,0 +1,499 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.SimilarProductResponse;
+import com.project.ClothingEcommerceWebsite.models.Product;
+import com.project.ClothingEcommerceWebsite.repositories.ProductRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import com.project.ClothingEcommerceWebsite.utils.SlugUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+// "Sản phẩm tương tự" theo TF-IDF trên tên, mô tả và danh mục, dùng cho cả sản phẩm mới chưa có lượt bán.
+// Từ được tách theo đúng chuẩn hóa của SlugUtil (bỏ dấu, đ -> d, chữ thường).
+// Top-K cosine của mọi sản phẩm được tính trước song song bằng fork-join khi dựng lại toàn bộ (lúc khởi động
+// và theo rebuild-cron). Khi sản phẩm thay đổi, chỉ sản phẩm đó và các sản phẩm có chung từ với nó (trước
+// hoặc sau khi sửa) được tính lại top-K; IDF giữ nguyên từ lần dựng toàn bộ gần nhất, từ mới chưa có trong
+// IDF bị bỏ qua cho tới lần dựng toàn bộ kế tiếp.
+@Component
+public class SimilarProductIndex {
+
+    // Số sản phẩm mỗi task fork-join xử lý trực tiếp
+    private static final int LEAF_SIZE = 64;
+    // Số sản phẩm phải tính lại vượt tỉ lệ này thì dựng lại toàn bộ luôn
+    private static final double MAX_INCREMENTAL_RATIO = 0.5;
+    // Bộ cộng dồn của từng worker, dùng lại giữa các task; chỉ các ô đã chạm được reset về 0
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ProductRepository productRepository;
+    private final int topK;
+    private final double maxDfRatio;
+
+    private final Map<Long, TermDoc> docs = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean fullRefresh;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // Chỉ truy cập trong synchronized (this)
+    private Model model;
+
+    public SimilarProductIndex(ProductRepository productRepository,
+                               @Value("${similar.top-k}") int topK,
+                               @Value("${similar.max-df-ratio}") double maxDfRatio) {
+        this.productRepository = productRepository;
+        this.topK = topK;
+        this.maxDfRatio = maxDfRatio;
+    }
+
+    private record TermDoc(boolean published, Map<String, Integer> counts) {
+    }
+
+    private record Vector(int[] terms, float[] weights) {
+        private static final Vector EMPTY = new Vector(new int[0], new float[0]);
+    }
+
+    // Gọi khi tạo, sửa hoặc xóa sản phẩm; chỉ đánh dấu sau khi commit, lần refresh kế tiếp sẽ đọc lại
+    public void markChanged(Long productId) {
+        AfterCommit.run(() -> dirty.add(productId));
+    }
+
+    // Khi nhiều sản phẩm đổi cùng lúc (bật/tắt cả danh mục) thì đọc lại toàn bộ ở lần refresh kế tiếp
+    public void markAllChanged() {
+        AfterCommit.run(() -> fullRefresh = true);
+    }
+
+    // Dựng lại toàn bộ để IDF theo kịp catalog hiện tại
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${similar.rebuild-cron}")
+    public synchronized void rebuild() {
+        try {
+            long started = System.currentTimeMillis();
+            dirty.clear();
+            fullRefresh = false;
+            docs.clear();
+            for (Product product : productRepository.findAll()) {
+                docs.put(product.getId(), toDoc(product));
+            }
+            model = Model.build(docs, topK, maxDfRatio);
+            snapshot = model.snapshot();
+            System.out.println("Built similar product index for " + docs.size() + " products in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not build similar product index: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${similar.refresh-interval-seconds}", timeUnit = TimeUnit.SECONDS)
+    public synchronized void refresh() {
+        if (fullRefresh || model == null) {
+            rebuild();
+            return;
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> changed = new ArrayList<>(dirty);
+        dirty.removeAll(changed);
+        try {
+            // Đọc hết trước khi sửa chỉ mục để lỗi DB không để lại chỉ mục dở dang
+            Map<Long, TermDoc> updates = new HashMap<>();
+            for (Long id : changed) {
+                updates.put(id, productRepository.findById(id).map(SimilarProductIndex::toDoc).orElse(null));
+            }
+            for (Map.Entry<Long, TermDoc> entry : updates.entrySet()) {
+                if (entry.getValue() != null) {
+                    docs.put(entry.getKey(), entry.getValue());
+                } else {
+                    docs.remove(entry.getKey());
+                }
+            }
+            if (!model.update(updates)) {
+                model = Model.build(docs, topK, maxDfRatio);
+            }
+            snapshot = model.snapshot();
+        } catch (RuntimeException e) {
+            dirty.addAll(changed);
+            System.err.println("Warning: Could not refresh similar product index: " + e.getMessage());
+        }
+    }
+
+    public List<SimilarProductResponse> similar(Long productId, int limit) {
+        Snapshot current = snapshot;
+        int row = Arrays.binarySearch(current.ids, productId);
+        if (row < 0) {
+            return Collections.emptyList();
+        }
+        long[] neighbors = current.neighbors[row];
+        float[] scores = current.scores[row];
+        int n = Math.min(neighbors.length, Math.max(limit, 0));
+        List<SimilarProductResponse> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(new SimilarProductResponse(neighbors[i], scores[i]));
+        }
+        return result;
+    }
+
+    // Tên sản phẩm được tính hai lần để nặng hơn mô tả
+    private static TermDoc toDoc(Product product) {
+        Map<String, Integer> counts = new HashMap<>();
+        addTokens(counts, product.getName(), "");
+        addTokens(counts, product.getName(), "");
+        addTokens(counts, product.getDescription(), "");
+        if (product.getCategory() != null) {
+            addTokens(counts, product.getCategory().getName(), "cat:");
+        }
+        return new TermDoc(Boolean.TRUE.equals(product.getIsPublished()), counts);
+    }
+
+    private static void addTokens(Map<String, Integer> counts, String text, String prefix) {
+        for (String token : SlugUtil.toSlug(text).split("-")) {
+            if (token.length() > 1) {
+                counts.merge(prefix + token, 1, Integer::sum);
+            }
+        }
+    }
+
+    // Chỉ mục theo slot (vị trí cố định của sản phẩm tới lần dựng toàn bộ kế tiếp): vector tf-idf,
+    // chỉ mục ngược term -> (slot, trọng số) và top-K của từng slot. Slot của sản phẩm đã xóa để trống.
+    private static final class Model {
+        private final int topK;
+        private final Map<String, Integer> termIds;
+        private final int[] df;
+        private final int docCount;
+        private final int maxDf;
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final int[][] postingDocs;
+        private final float[][] postingWeights;
+        private long[] ids;
+        private TermDoc[] termDocs;
+        private int[][] vectorTerms;
+        private float[][] vectorWeights;
+        private long[][] neighbors;
+        private float[][] scores;
+        private int slots;
+
+        private Model(int topK, Map<String, Integer> termIds, int[] df, int docCount, int maxDf, int capacity) {
+            this.topK = topK;
+            this.termIds = termIds;
+            this.df = df;
+            this.docCount = docCount;
+            this.maxDf = maxDf;
+            this.postingDocs = new int[termIds.size()][];
+            this.postingWeights = new float[termIds.size()][];
+            this.ids = new long[capacity];
+            this.termDocs = new TermDoc[capacity];
+            this.vectorTerms = new int[capacity][];
+            this.vectorWeights = new float[capacity][];
+            this.neighbors = new long[capacity][];
+            this.scores = new float[capacity][];
+        }
+
+        private static Model build(Map<Long, TermDoc> docs, int topK, double maxDfRatio) {
+            long[] ids = docs.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            int n = ids.length;
+            Map<String, Integer> termIds = new HashMap<>();
+            int[] df = new int[16];
+            for (long id : ids) {
+                for (String term : docs.get(id).counts().keySet()) {
+                    int termId = termIds.computeIfAbsent(term, t -> termIds.size());
+                    if (termId >= df.length) {
+                        df = Arrays.copyOf(df, df.length * 2);
+                    }
+                    df[termId]++;
+                }
+            }
+
+            // Từ xuất hiện ở quá nhiều sản phẩm ("ao", "quan") bị bỏ
+            Model model = new Model(topK, termIds, df, n, Math.max(2, (int) (n * maxDfRatio)), Math.max(n, 16));
+            int[] postingSizes = new int[termIds.size()];
+            for (int d = 0; d < n; d++) {
+                model.ids[d] = ids[d];
+                model.slotById.put(ids[d], d);
+                model.termDocs[d] = docs.get(ids[d]);
+                Vector vector = model.vectorOf(model.termDocs[d]);
+                model.vectorTerms[d] = vector.terms();
+                model.vectorWeights[d] = vector.weights();
+                for (int t : vector.terms()) {
+                    postingSizes[t]++;
+                }
+            }
+            model.slots = n;
+
+            for (int t = 0; t < postingSizes.length; t++) {
+                model.postingDocs[t] = new int[postingSizes[t]];
+                model.postingWeights[t] = new float[postingSizes[t]];
+                postingSizes[t] = 0;
+            }
+            for (int d = 0; d < n; d++) {
+                for (int i = 0; i < model.vectorTerms[d].length; i++) {
+                    int t = model.vectorTerms[d][i];
+                    model.postingDocs[t][postingSizes[t]] = d;
+                    model.postingWeights[t][postingSizes[t]++] = model.vectorWeights[d][i];
+                }
+            }
+
+            int[] rows = new int[n];
+            for (int d = 0; d < n; d++) {
+                rows[d] = d;
+            }
+            model.computeTopK(rows);
+            return model;
+        }
+
+        // Vector tf-idf đã chuẩn hóa L2 theo IDF của lần dựng toàn bộ; từ chưa có trong IDF bị bỏ
+        private Vector vectorOf(TermDoc doc) {
+            int[] kept = new int[doc.counts().size()];
+            float[] weights = new float[kept.length];
+            int size = 0;
+            double norm = 0;
+            for (Map.Entry<String, Integer> entry : doc.counts().entrySet()) {
+                Integer termId = termIds.get(entry.getKey());
+                if (termId == null || df[termId] < 2 || df[termId] > maxDf) {
+                    continue;
+                }
+                double weight = (1 + Math.log(entry.getValue())) * Math.log((double) docCount / df[termId]);
+                if (weight <= 0) {
+                    continue;
+                }
+                kept[size] = termId;
+                weights[size++] = (float) weight;
+                norm += weight * weight;
+            }
+            float scale = norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] *= scale;
+            }
+            return size == 0 ? Vector.EMPTY : new Vector(Arrays.copyOf(kept, size), Arrays.copyOf(weights, size));
+        }
+
+        // Cập nhật các sản phẩm thay đổi (null = đã xóa) và tính lại top-K của những slot bị ảnh hưởng.
+        // Trả false (không sửa gì) nếu số slot phải tính lại quá lớn, khi đó nên dựng lại toàn bộ
+        private boolean update(Map<Long, TermDoc> updates) {
+            Map<Long, Vector> vectors = new HashMap<>();
+            BitSet affected = new BitSet();
+            for (Map.Entry<Long, TermDoc> entry : updates.entrySet()) {
+                Integer slot = slotById.get(entry.getKey());
+                if (slot != null) {
+                    affected.set(slot);
+                    markPostings(vectorTerms[slot], affected);
+                }
+                Vector vector = entry.getValue() != null ? vectorOf(entry.getValue()) : Vector.EMPTY;
+                vectors.put(entry.getKey(), vector);
+                markPostings(vector.terms(), affected);
+            }
+            if (affected.cardinality() > Math.max(LEAF_SIZE, slots * MAX_INCREMENTAL_RATIO)) {
+                return false;
+            }
+
+            for (Map.Entry<Long, TermDoc> entry : updates.entrySet()) {
+                Integer slot = slotById.get(entry.getKey());
+                if (slot != null) {
+                    removePostings(slot);
+                } else if (entry.getValue() == null) {
+                    continue;
+                } else {
+                    slot = addSlot(entry.getKey());
+                }
+                Vector vector = vectors.get(entry.getKey());
+                termDocs[slot] = entry.getValue();
+                vectorTerms[slot] = vector.terms();
+                vectorWeights[slot] = vector.weights();
+                addPostings(slot);
+                affected.set(slot);
+            }
+            computeTopK(affected.stream().toArray());
+            return true;
+        }
+
+        private void markPostings(int[] terms, BitSet affected) {
+            for (int t : terms) {
+                for (int d : postingDocs[t]) {
+                    affected.set(d);
+                }
+            }
+        }
+
+        private void removePostings(int slot) {
+            for (int t : vectorTerms[slot]) {
+                int[] docs = postingDocs[t];
+                float[] weights = postingWeights[t];
+                int[] keptDocs = new int[docs.length - 1];
+                float[] keptWeights = new float[keptDocs.length];
+                int size = 0;
+                for (int p = 0; p < docs.length; p++) {
+                    if (docs[p] != slot) {
+                        keptDocs[size] = docs[p];
+                        keptWeights[size++] = weights[p];
+                    }
+                }
+                postingDocs[t] = keptDocs;
+                postingWeights[t] = keptWeights;
+            }
+        }
+
+        private void addPostings(int slot) {
+            for (int i = 0; i < vectorTerms[slot].length; i++) {
+                int t = vectorTerms[slot][i];
+                int length = postingDocs[t].length;
+                postingDocs[t] = Arrays.copyOf(postingDocs[t], length + 1);
+                postingWeights[t] = Arrays.copyOf(postingWeights[t], length + 1);
+                postingDocs[t][length] = slot;
+                postingWeights[t][length] = vectorWeights[slot][i];
+            }
+        }
+
+        private int addSlot(Long id) {
+            if (slots == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                termDocs = Arrays.copyOf(termDocs, capacity);
+                vectorTerms = Arrays.copyOf(vectorTerms, capacity);
+                vectorWeights = Arrays.copyOf(vectorWeights, capacity);
+                neighbors = Arrays.copyOf(neighbors, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            ids[slots] = id;
+            slotById.put(id, slots);
+            return slots++;
+        }
+
+        private void computeTopK(int[] rows) {
+            ForkJoinPool.commonPool().invoke(new TopKTask(this, rows, 0, rows.length));
+        }
+
+        private Snapshot snapshot() {
+            long[] sortedIds = new long[slots];
+            int n = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                if (termDocs[slot] != null) {
+                    sortedIds[n++] = ids[slot];
+                }
+            }
+            sortedIds = Arrays.copyOf(sortedIds, n);
+            Arrays.sort(sortedIds);
+            long[][] rowNeighbors = new long[n][];
+            float[][] rowScores = new float[n][];
+            for (int i = 0; i < n; i++) {
+                int slot = slotById.get(sortedIds[i]);
+                rowNeighbors[i] = neighbors[slot];
+                rowScores[i] = scores[slot];
+            }
+            return new Snapshot(sortedIds, rowNeighbors, rowScores);
+        }
+    }
+
+    private static final class Scratch {
+        private float[] acc = new float[0];
+        private int[] touched = new int[0];
+        private int[] topDocs = new int[0];
+        private float[] topScores = new float[0];
+
+        private void ensure(int slots, int topK) {
+            if (acc.length < slots) {
+                acc = new float[slots];
+                touched = new int[slots];
+            }
+            if (topDocs.length < topK) {
+                topDocs = new int[topK];
+                topScores = new float[topK];
+            }
+        }
+    }
+
+    private static final class TopKTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Model model;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        private TopKTask(Model model, int[] rows, int from, int to) {
+            this.model = model;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TopKTask(model, rows, from, mid), new TopKTask(model, rows, mid, to));
+                return;
+            }
+            int topK = model.topK;
+            Scratch scratch = SCRATCH.get();
+            scratch.ensure(model.slots, topK);
+            float[] acc = scratch.acc;
+            int[] touched = scratch.touched;
+            int[] topDocs = scratch.topDocs;
+            float[] topScores = scratch.topScores;
+            for (int r = from; r < to; r++) {
+                int d = rows[r];
+                if (model.termDocs[d] == null) {
+                    model.neighbors[d] = new long[0];
+                    model.scores[d] = new float[0];
+                    continue;
+                }
+                int touchedSize = 0;
+                for (int i = 0; i < model.vectorTerms[d].length; i++) {
+                    int t = model.vectorTerms[d][i];
+                    float weight = model.vectorWeights[d][i];
+                    int[] postingDocs = model.postingDocs[t];
+                    float[] postingWeights = model.postingWeights[t];
+                    for (int p = 0; p < postingDocs.length; p++) {
+                        int other = postingDocs[p];
+                        if (other == d || !model.termDocs[other].published()) {
+                            continue;
+                        }
+                        if (acc[other] == 0) {
+                            touched[touchedSize++] = other;
+                        }
+                        acc[other] += weight * postingWeights[p];
+                    }
+                }
+                int size = 0;
+                for (int i = 0; i < touchedSize; i++) {
+                    int other = touched[i];
+                    size = offer(topDocs, topScores, topK, size, other, acc[other]);
+                    acc[other] = 0;
+                }
+                long[] rowNeighbors = new long[size];
+                for (int i = 0; i < size; i++) {
+                    rowNeighbors[i] = model.ids[topDocs[i]];
+                }
+                model.neighbors[d] = rowNeighbors;
+                model.scores[d] = Arrays.copyOf(topScores, size);
+            }
+        }
+
+        // Chèn vào danh sách top-K đang sắp giảm dần theo điểm (bằng điểm thì slot nhỏ trước)
+        private static int offer(int[] topDocs, float[] topScores, int topK, int size, int doc, float score) {
+            if (size == topK && (score < topScores[size - 1]
+                    || (score == topScores[size - 1] && doc > topDocs[size - 1]))) {
+                return size;
+            }
+            int i = size == topK ? size - 1 : size++;
+            while (i > 0 && (topScores[i - 1] < score || (topScores[i - 1] == score && topDocs[i - 1] > doc))) {
+                topDocs[i] = topDocs[i - 1];
+                topScores[i] = topScores[i - 1];
+                i--;
+            }
+            topDocs[i] = doc;
+            topScores[i] = score;
+            return size;
+        }
+    }
+
+    private record Snapshot(long[] ids, long[][] neighbors, float[][] scores) {
+        private static final Snapshot EMPTY = new Snapshot(new long[0], new long[0][], new float[0][]);
+    }
+}
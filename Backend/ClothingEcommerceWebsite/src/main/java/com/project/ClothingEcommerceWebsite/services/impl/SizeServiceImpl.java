@@ -2,10 +2,12 @@ package com.project.ClothingEcommerceWebsite.services.impl;
 
 import com.project.ClothingEcommerceWebsite.dtos.request.CreateSizeRequest;
 import com.project.ClothingEcommerceWebsite.exception.BadRequestException;
+import com.project.ClothingEcommerceWebsite.models.Enums;
 import com.project.ClothingEcommerceWebsite.models.Size;
 import com.project.ClothingEcommerceWebsite.repositories.ProductVariantRepository;
 import com.project.ClothingEcommerceWebsite.repositories.SizeRepository;
 import com.project.ClothingEcommerceWebsite.services.SizeService;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,8 +21,10 @@ public class SizeServiceImpl implements SizeService {
 
     private final SizeRepository sizeRepository;
     private final ProductVariantRepository productVariantRepository;
+    private final CatalogChangeLog catalogChangeLog;
 
     @Override
+    @Transactional
     public Size createSize(CreateSizeRequest request) {
         if (sizeRepository.existsByCode(request.getCode())) {
             throw new RuntimeException("Size code already exists");
@@ -35,7 +39,9 @@ public class SizeServiceImpl implements SizeService {
                 .sortOrder(request.getSortOrder() != null ? request.getSortOrder() : 0)
                 .build();
 
-        return sizeRepository.save(size);
+        Size saved = sizeRepository.save(size);
+        catalogChangeLog.upsert(Enums.CatalogEntity.SIZE, saved.getId());
+        return saved;
     }
 
     @Override
@@ -50,6 +56,7 @@ public class SizeServiceImpl implements SizeService {
     }
 
     @Override
+    @Transactional
     public Size updateSize(Long id, CreateSizeRequest request) {
         Size size = sizeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Size not found with id: " + id));
@@ -57,10 +64,13 @@ public class SizeServiceImpl implements SizeService {
         size.setCode(request.getCode().trim().toUpperCase());
         size.setName(request.getName().trim());
         size.setSortOrder(request.getSortOrder() != null ? request.getSortOrder() : 0);
-        return sizeRepository.save(size);
+        Size saved = sizeRepository.save(size);
+        catalogChangeLog.upsert(Enums.CatalogEntity.SIZE, saved.getId());
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteSize(Long id) {
         if (!sizeRepository.existsById(id)) {
             throw new RuntimeException("Size not found with id: " + id);
@@ -71,5 +81,6 @@ public class SizeServiceImpl implements SizeService {
             );
         }
         sizeRepository.deleteById(id);
+        catalogChangeLog.delete(Enums.CatalogEntity.SIZE, id);
     }
 }
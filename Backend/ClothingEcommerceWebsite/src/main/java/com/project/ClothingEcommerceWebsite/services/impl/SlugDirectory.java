@@ -0,0 +1,139 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.models.SlugRedirect;
+import com.project.ClothingEcommerceWebsite.repositories.ProductRepository;
+import com.project.ClothingEcommerceWebsite.repositories.SlugRedirectRepository;
+import com.project.ClothingEcommerceWebsite.utils.AfterCommit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tra slug -> id trong bộ nhớ cho route theo slug của frontend.
+// Slug hiện tại của danh mục lấy từ CategoryTree; slug cũ (sau khi đổi tên/SKU) được lưu ở slug_redirects
+// và trả về kèm slug hiện tại để controller redirect 301.
+@Component
+public class SlugDirectory {
+
+    private final ProductRepository productRepository;
+    private final SlugRedirectRepository slugRedirectRepository;
+    private final CategoryTree categoryTree;
+
+    private final Map<String, Long> productIdBySlug = new ConcurrentHashMap<>();
+    private final Map<Long, String> productSlugById = new ConcurrentHashMap<>();
+    private final Map<String, Long> productAliases = new ConcurrentHashMap<>();
+    private final Map<String, Long> categoryAliases = new ConcurrentHashMap<>();
+
+    public SlugDirectory(ProductRepository productRepository,
+                         SlugRedirectRepository slugRedirectRepository,
+                         CategoryTree categoryTree) {
+        this.productRepository = productRepository;
+        this.slugRedirectRepository = slugRedirectRepository;
+        this.categoryTree = categoryTree;
+    }
+
+    // redirect = true khi slug là slug cũ, canonicalSlug là slug hiện tại
+    public record Resolution(Long id, String canonicalSlug, boolean redirect) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        try {
+            productIdBySlug.clear();
+            productSlugById.clear();
+            productAliases.clear();
+            categoryAliases.clear();
+            for (ProductRepository.SlugView row : productRepository.findAllSlugs()) {
+                productIdBySlug.put(row.getSlug(), row.getId());
+                productSlugById.put(row.getId(), row.getSlug());
+            }
+            for (SlugRedirect redirect : slugRedirectRepository.findAll()) {
+                aliasesOf(redirect.getSlugType()).put(redirect.getOldSlug(), redirect.getTargetId());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not load slug directory: " + e.getMessage());
+        }
+    }
+
+    public Optional<Resolution> resolveProduct(String slug) {
+        Long id = productIdBySlug.get(slug);
+        if (id != null) {
+            return Optional.of(new Resolution(id, slug, false));
+        }
+        Long target = productAliases.get(slug);
+        String canonical = target != null ? productSlugById.get(target) : null;
+        return canonical != null ? Optional.of(new Resolution(target, canonical, true)) : Optional.empty();
+    }
+
+    public Optional<Resolution> resolveCategory(String slug) {
+        Optional<CategoryTree.Node> node = categoryTree.getBySlug(slug);
+        if (node.isPresent()) {
+            return Optional.of(new Resolution(node.get().id(), slug, false));
+        }
+        Long target = categoryAliases.get(slug);
+        if (target == null) {
+            return Optional.empty();
+        }
+        return categoryTree.get(target).map(current -> new Resolution(target, current.slug(), true));
+    }
+
+    // Gọi trong transaction tạo/sửa sản phẩm, oldSlug = null khi tạo mới
+    public void productSlugChanged(Long id, String oldSlug, String newSlug) {
+        slugChanged(Enums.SlugType.PRODUCT, id, oldSlug, newSlug);
+        AfterCommit.run(() -> {
+            if (oldSlug != null) {
+                productIdBySlug.remove(oldSlug, id);
+            }
+            productIdBySlug.put(newSlug, id);
+            productSlugById.put(id, newSlug);
+        });
+    }
+
+    public void productDeleted(Long id, String slug) {
+        slugRedirectRepository.deleteByTarget(Enums.SlugType.PRODUCT.name(), id);
+        AfterCommit.run(() -> {
+            productIdBySlug.remove(slug, id);
+            productSlugById.remove(id);
+            productAliases.values().removeIf(id::equals);
+        });
+    }
+
+    // Slug hiện tại của danh mục do CategoryTree cập nhật, ở đây chỉ giữ alias
+    public void categorySlugChanged(Long id, String oldSlug, String newSlug) {
+        slugChanged(Enums.SlugType.CATEGORY, id, oldSlug, newSlug);
+    }
+
+    public void categoryDeleted(Long id) {
+        slugRedirectRepository.deleteByTarget(Enums.SlugType.CATEGORY.name(), id);
+        AfterCommit.run(() -> categoryAliases.values().removeIf(id::equals));
+    }
+
+    private void slugChanged(Enums.SlugType type, Long id, String oldSlug, String newSlug) {
+        Map<String, Long> aliases = aliasesOf(type);
+        boolean renamed = oldSlug != null && !oldSlug.equals(newSlug);
+        if (renamed) {
+            slugRedirectRepository.upsert(type.name(), oldSlug, id);
+        }
+        // Slug đang được dùng lại thì không còn là alias
+        boolean reused = aliases.containsKey(newSlug);
+        if (reused) {
+            slugRedirectRepository.deleteBySlug(type.name(), newSlug);
+        }
+        AfterCommit.run(() -> {
+            if (renamed) {
+                aliases.put(oldSlug, id);
+            }
+            if (reused) {
+                aliases.remove(newSlug);
+            }
+        });
+    }
+
+    private Map<String, Long> aliasesOf(Enums.SlugType type) {
+        return type == Enums.SlugType.PRODUCT ? productAliases : categoryAliases;
+    }
+}
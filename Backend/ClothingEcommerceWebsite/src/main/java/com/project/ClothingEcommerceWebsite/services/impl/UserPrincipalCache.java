@@ -0,0 +1,35 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.models.User;
+import com.project.ClothingEcommerceWebsite.utils.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+// Cache ngắn hạn user + roles theo email, để lần đăng nhập chỉ truy vấn DB một lần
+@Component
+public class UserPrincipalCache {
+
+    private final ExpiringCache<String, User> users;
+
+    public UserPrincipalCache(@Value("${auth.principal-cache.ttl-seconds}") long ttlSeconds,
+                              @Value("${auth.principal-cache.max-size}") int maxSize) {
+        this.users = new ExpiringCache<>(ttlSeconds * 1000, maxSize);
+    }
+
+    public Optional<User> get(String email, Function<String, Optional<User>> loader) {
+        return Optional.ofNullable(users.getOrLoad(normalize(email), key -> loader.apply(email).orElse(null)));
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            users.invalidate(normalize(email));
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase();
+    }
+}
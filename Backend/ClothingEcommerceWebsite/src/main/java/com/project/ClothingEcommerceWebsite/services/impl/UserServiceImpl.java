@@ -37,6 +37,9 @@ public class UserServiceImpl implements UserService {
     private final ReviewRepository reviewRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final CartIdCache cartIdCache;
+    private final ProductRatingAggregator productRatingAggregator;
 
     private final JwtUtil jwtUtil;
 
@@ -90,6 +93,11 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByEmail(email);
     }
 
+    @Override
+    public Optional<User> getUserWithRolesByEmail(String email) {
+        return userPrincipalCache.get(email, userRepository::findWithRolesByEmail);
+    }
+
     @Override
     public void updateUserRoles(Long userId, Role role) {
         User user = userRepository.findById(userId)
@@ -101,6 +109,7 @@ public class UserServiceImpl implements UserService {
         roles.add(newRole);
         user.setRoles(roles);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
     @Override
@@ -110,6 +119,7 @@ public class UserServiceImpl implements UserService {
         user.setFullName(request.getFullName());
         user.setPhone(request.getPhone());
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
     @Override
@@ -131,12 +141,18 @@ public class UserServiceImpl implements UserService {
             cartItemRepository.deleteByCartId(cart.get().getId());
         }
         cartRepository.deleteByUserId(id);
+        cartIdCache.evict(id);
         addressRepository.deleteByUserId(id);
+        List<Long> reviewedProductIds = reviewRepository.findProductIdsByUserId(id);
         reviewRepository.deleteAllByUserId(id);
+        // deleteAll chạy từng entity nên cần flush trước khi tính lại từ bảng reviews
+        reviewRepository.flush();
+        productRatingAggregator.recompute(reviewedProductIds);
         couponRedemptionRepository.deleteByUserId(id);
         user.setRoles(new HashSet<>());
         userRepository.save(user);
         userRepository.deleteById(id);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
     @Override
@@ -146,6 +162,7 @@ public class UserServiceImpl implements UserService {
 
         user.setIsActive(false);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
     @Override
@@ -155,6 +172,7 @@ public class UserServiceImpl implements UserService {
 
         user.setIsActive(true);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
     @Override
@@ -169,6 +187,7 @@ public class UserServiceImpl implements UserService {
         }
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
     @Override
@@ -193,6 +212,7 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(password));
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
         return new MessageResponse("Mật khẩu thay đổi thành công!!");
     }
 
@@ -205,6 +225,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByEmail(email).orElseThrow(() -> new NotFoundException("Không tìm thấy người dùng"));
         user.setIsActive(true);
         userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
         return new MessageResponse("Account verified. You can now login.");
     }
 }
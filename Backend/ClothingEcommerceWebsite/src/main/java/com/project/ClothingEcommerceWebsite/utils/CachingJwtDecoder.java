@@ -0,0 +1,69 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Giữ các token đã xác thực (theo chữ ký) cùng claims đã parse, mỗi entry hết hạn đúng tại exp của token
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Map<String, Jwt> verified;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.verified = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Jwt> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String signature = signatureOf(token);
+        if (signature != null) {
+            Jwt cached;
+            synchronized (verified) {
+                cached = verified.get(signature);
+            }
+            if (cached != null && cached.getTokenValue().equals(token)) {
+                if (isLive(cached)) {
+                    return cached;
+                }
+                synchronized (verified) {
+                    verified.remove(signature);
+                }
+            }
+        }
+
+        Jwt jwt = delegate.decode(token);
+        if (signature != null && isLive(jwt)) {
+            synchronized (verified) {
+                verified.put(signature, jwt);
+            }
+        }
+        return jwt;
+    }
+
+    private static boolean isLive(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    private static String signatureOf(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.lastIndexOf('.');
+        if (dot < 0 || dot == token.length() - 1) {
+            return null;
+        }
+        return token.substring(dot + 1);
+    }
+}
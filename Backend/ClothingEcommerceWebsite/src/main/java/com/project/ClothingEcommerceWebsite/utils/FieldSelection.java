@@ -0,0 +1,62 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Tham số fields=id,name,...: chỉ giữ các trường cấp ngoài cùng được yêu cầu (mỗi phần tử nếu là danh sách).
+// Không truyền fields (hoặc rỗng, chỉ có dấu phẩy) thì response giữ nguyên; tên trường không tồn tại bị bỏ qua.
+public class FieldSelection {
+
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> selected = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+        // "fields=," không chọn trường nào: coi như không truyền để không trả về toàn {}
+        return selected.isEmpty() ? ALL : new FieldSelection(Collections.unmodifiableSet(selected));
+    }
+
+    public boolean includesAll() {
+        return fields == null;
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    public Object apply(ObjectMapper objectMapper, Object body) {
+        if (fields == null || body == null) {
+            return body;
+        }
+        return apply(objectMapper.<JsonNode>valueToTree(body));
+    }
+
+    public JsonNode apply(JsonNode node) {
+        if (fields == null || node == null) {
+            return node;
+        }
+        if (node.isArray()) {
+            node.forEach(this::apply);
+        } else if (node.isObject()) {
+            ((ObjectNode) node).retain(fields);
+        }
+        return node;
+    }
+}
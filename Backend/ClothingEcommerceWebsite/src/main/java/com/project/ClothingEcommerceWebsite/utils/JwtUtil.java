@@ -46,6 +46,7 @@ public class JwtUtil {
         return validateTokenType(token, "confirm");
     }
 
+    // jwtDecoder dùng chung có cache token đã xác thực, lần decode thứ hai trong getEmailFromToken không tính lại HMAC
     private boolean validateTokenType(String token, String expectedType) {
         try {
             Jwt jwt = jwtDecoder.decode(token);
@@ -0,0 +1,107 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import com.project.ClothingEcommerceWebsite.configs.RateLimitProperties;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token bucket dạng GCRA: mỗi bucket chỉ là một AtomicLong (thời điểm đến lý thuyết), cập nhật bằng CAS, không khóa
+@Component
+public class RateLimiter {
+
+    private static final int SHARDS = 16;
+
+    private final RateLimitProperties properties;
+    private final List<ConcurrentHashMap<String, AtomicLong>> shards;
+    private final Map<String, LongAdder> allowed = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejected = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        List<ConcurrentHashMap<String, AtomicLong>> maps = new ArrayList<>(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            maps.add(new ConcurrentHashMap<>());
+        }
+        this.shards = List.copyOf(maps);
+    }
+
+    public Decision tryAcquire(String ruleName, String key, RateLimitProperties.Limit limit) {
+        long now = System.nanoTime();
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, limit.getRefillPerMinute());
+        long burst = interval * Math.max(1, limit.getCapacity());
+        AtomicLong bucket = shardFor(key).computeIfAbsent(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + interval;
+            if (newTat - now > burst) {
+                counter(rejected, ruleName).increment();
+                long retryAfter = newTat - burst - now;
+                return new Decision(false, limit.getCapacity(), 0, toSeconds(tat - now), toSeconds(retryAfter));
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                counter(allowed, ruleName).increment();
+                int remaining = (int) ((burst - (newTat - now)) / interval);
+                return new Decision(true, limit.getCapacity(), remaining, toSeconds(newTat - now), 0);
+            }
+        }
+    }
+
+    // Bucket đã đầy lại và không được dùng quá thời gian idle thì bỏ khỏi bộ nhớ
+    @Scheduled(fixedDelayString = "${rate-limit.idle-eviction-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(properties.getIdleEvictionSeconds());
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            shard.values().removeIf(tat -> tat.get() - cutoff < 0);
+        }
+    }
+
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            Map<String, Long> ruleStats = new LinkedHashMap<>();
+            ruleStats.put("allowed", counter(allowed, rule.getName()).sum());
+            ruleStats.put("rejected", counter(rejected, rule.getName()).sum());
+            stats.put(rule.getName(), ruleStats);
+        }
+        long buckets = 0;
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            buckets += shard.size();
+        }
+        stats.put("_buckets", Map.of("active", buckets));
+        return stats;
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> shardFor(String key) {
+        int h = key.hashCode();
+        return shards.get((h ^ (h >>> 16)) & (SHARDS - 1));
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(0, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Decision {
+        private final boolean allowed;
+        private final int limit;
+        private final int remaining;
+        private final long resetSeconds;
+        private final long retryAfterSeconds;
+    }
+}
@@ -1,15 +1,11 @@
 package com.project.ClothingEcommerceWebsite.utils;
 
-import com.nimbusds.jose.util.Base64;
 import com.project.ClothingEcommerceWebsite.exception.UnauthorizedException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.stereotype.Service;
-
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
@@ -22,15 +18,14 @@ public class SecurityUtil {
     @Value("${jwt.refreshtoken-expiration}")
     private Long jwtRefreshTokenExpiration;
 
-    @Value("${jwt.secretKey}")
-    private String jwtKey;
-
     private final JwtEncoder jwtEncoder;
+    private final JwtDecoder jwtDecoder;
 
     public static final MacAlgorithm JWT_ALGORITHM = MacAlgorithm.HS256;
 
-    public SecurityUtil(JwtEncoder jwtEncoder) {
+    public SecurityUtil(JwtEncoder jwtEncoder, JwtDecoder jwtDecoder) {
         this.jwtEncoder = jwtEncoder;
+        this.jwtDecoder = jwtDecoder;
     }
 
     public String createAccessToken(Authentication authentication) {
@@ -62,19 +57,11 @@ public class SecurityUtil {
         return this.jwtEncoder.encode(JwtEncoderParameters.from(jwsHeader, claims)).getTokenValue();
     }
 
-    private SecretKey getSecretKey() {
-        byte[] keyBytes = Base64.from(jwtKey).decode();
-        return new SecretKeySpec(keyBytes, 0, keyBytes.length, SecurityUtil.JWT_ALGORITHM.getName());
-    }
-
     public Jwt checkValidRefreshToken(String token) {
-        NimbusJwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(
-                getSecretKey()).macAlgorithm(SecurityUtil.JWT_ALGORITHM).build();
-            try {
-                return jwtDecoder.decode(token);
-            } catch (JwtException e) {
-                System.out.println(">>> JWT error: " + e.getMessage());
-                throw new UnauthorizedException("Refresh token đã hết hạn hoặc không hợp lệ");
-            }
-        };
+        try {
+            return jwtDecoder.decode(token);
+        } catch (JwtException e) {
+            throw new UnauthorizedException("Refresh token đã hết hạn hoặc không hợp lệ");
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Vòng bucket theo thời gian, không dùng lock: mỗi slot là một long gồm số thứ tự bucket (24 bit cao)
+// và giá trị đếm (40 bit thấp), nên việc reset slot cũ và cộng dồn nằm trong cùng một lần CAS
+public class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long STAMP_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+
+    private final long bucketMillis;
+    private final AtomicLongArray slots;
+
+    public SlidingWindowCounter(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    // delta âm dùng khi hủy đơn; bucket đã trôi khỏi cửa sổ thì bỏ qua
+    public void add(long timeMillis, long nowMillis, long delta) {
+        long bucket = timeMillis / bucketMillis;
+        long current = nowMillis / bucketMillis;
+        if (bucket > current || bucket <= current - slots.length()) {
+            return;
+        }
+        int slot = (int) (bucket % slots.length());
+        long stamp = bucket & STAMP_MASK;
+        while (true) {
+            long value = slots.get(slot);
+            boolean sameBucket = (value >>> COUNT_BITS) == stamp;
+            if (!sameBucket && delta < 0) {
+                return;
+            }
+            long count = sameBucket ? value & COUNT_MASK : 0;
+            long next = Math.max(0, Math.min(COUNT_MASK, count + delta));
+            if (slots.compareAndSet(slot, value, (stamp << COUNT_BITS) | next)) {
+                return;
+            }
+        }
+    }
+
+    // Tổng của lastBuckets bucket gần nhất, tính cả bucket hiện tại
+    public long sum(long nowMillis, int lastBuckets) {
+        long current = nowMillis / bucketMillis;
+        int n = Math.min(lastBuckets, slots.length());
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            long bucket = current - i;
+            if (bucket < 0) {
+                break;
+            }
+            long value = slots.get((int) (bucket % slots.length()));
+            if ((value >>> COUNT_BITS) == (bucket & STAMP_MASK)) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    public int buckets() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,141 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import com.project.ClothingEcommerceWebsite.configs.VnPayConfig;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Khóa được nạp một lần lúc startup, mỗi thread giữ riêng Mac và buffer để không phải khởi tạo lại mỗi request
+@Component
+public class VNPaySigner {
+
+    private static final String ALGORITHM = "HmacSHA512";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int BUFFER_CAPACITY = 1024;
+
+    public static final ZoneId VNPAY_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    public static final DateTimeFormatter VNPAY_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(VNPAY_ZONE);
+
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<StringBuilder> buffers =
+            ThreadLocal.withInitial(() -> new StringBuilder(BUFFER_CAPACITY));
+
+    public VNPaySigner(VnPayConfig config) {
+        this.secretKey = new SecretKeySpec(config.getSecretKey().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        // Khởi tạo sớm để lỗi cấu hình khóa lộ ra lúc startup thay vì lúc thanh toán
+        newMac();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không khởi tạo được HMAC SHA512 cho VNPay", e);
+        }
+    }
+
+    public String formatDate(ZonedDateTime time) {
+        return VNPAY_DATE_FORMAT.format(time);
+    }
+
+    public StringBuilder buffer() {
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    public byte[] hmac(CharSequence data) {
+        Mac mac = macs.get();
+        return mac.doFinal(data.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String sign(CharSequence data) {
+        return toHex(hmac(data));
+    }
+
+    // So sánh trong thời gian hằng, chữ ký nhận được không phân biệt hoa thường
+    public boolean verify(CharSequence data, String receivedHash) {
+        if (receivedHash == null) {
+            return false;
+        }
+        byte[] received = fromHex(receivedHash);
+        if (received == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(hmac(data), received);
+    }
+
+    // Cho kết quả giống URLEncoder.encode(value, UTF_8) nhưng ghi thẳng vào buffer
+    public static void appendUrlEncoded(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '*' || c == '_') {
+                sb.append(c);
+            } else if (c == ' ') {
+                sb.append('+');
+            } else if (c < 0x80) {
+                appendPercent(sb, c);
+            } else if (c < 0x800) {
+                appendPercent(sb, 0xC0 | (c >> 6));
+                appendPercent(sb, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                appendPercent(sb, 0xF0 | (cp >> 18));
+                appendPercent(sb, 0x80 | ((cp >> 12) & 0x3F));
+                appendPercent(sb, 0x80 | ((cp >> 6) & 0x3F));
+                appendPercent(sb, 0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate lẻ: URLEncoder thay bằng '?'
+                appendPercent(sb, '?');
+            } else {
+                appendPercent(sb, 0xE0 | (c >> 12));
+                appendPercent(sb, 0x80 | ((c >> 6) & 0x3F));
+                appendPercent(sb, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void appendPercent(StringBuilder sb, int b) {
+        sb.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            out[i * 2] = HEX[v >>> 4];
+            out[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return new String(out);
+    }
+
+    static byte[] fromHex(String hex) {
+        if ((hex.length() & 1) != 0) {
+            return null;
+        }
+        byte[] out = new byte[hex.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            int hi = Character.digit(hex.charAt(i * 2), 16);
+            int lo = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return null;
+            }
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,120 @@
+package com.project.ClothingEcommerceWebsite.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductImageResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductListResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.RatingSummaryResponse;
+import com.project.ClothingEcommerceWebsite.models.Category;
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.models.Order;
+import com.project.ClothingEcommerceWebsite.models.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// So sánh JSON với CBOR/Smile: kích thước payload và CPU time serialize một trang ProductListResponse
+// và một danh sách Order, dùng đúng ObjectMapper của các converter (không chạy trong mvn test):
+// mvn test -Dtest=SerializationBenchmark -Dbenchmark=true [-Dbenchmark.items=50] [-Dbenchmark.iterations=200]
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SerializationBenchmark {
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareFormats() throws Exception {
+        int items = Integer.getInteger("benchmark.items", 50);
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+        JacksonBinaryConfig config = new JacksonBinaryConfig();
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", new Jackson2ObjectMapperBuilder().build());
+        mappers.put("cbor", config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper());
+        mappers.put("smile", config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper());
+
+        measure("products", products(items), mappers, iterations);
+        measure("orders", orders(items), mappers, iterations);
+    }
+
+    private void measure(String name, List<?> payload, Map<String, ObjectMapper> mappers, int iterations) throws Exception {
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            // Lượt làm nóng để loại chi phí dựng serializer lần đầu
+            int bytes = mapper.writeValueAsBytes(payload).length;
+            long started = threadMXBean.getCurrentThreadCpuTime();
+            for (int i = 0; i < iterations; i++) {
+                mapper.writeValueAsBytes(payload);
+            }
+            long elapsed = threadMXBean.getCurrentThreadCpuTime() - started;
+            System.out.printf("%s x%d %-5s %8d bytes %8.3f ms cpu/op%n", name, payload.size(), entry.getKey(), bytes,
+                    elapsed / 1_000_000.0 / iterations);
+        }
+    }
+
+    private static List<ProductListResponse> products(int count) {
+        Category category = Category.builder().id(3L).name("Áo thun").slug("ao-thun").isActive(true).build();
+        List<ProductListResponse> products = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            products.add(ProductListResponse.builder()
+                    .id(id)
+                    .sku("SKU" + id)
+                    .name("Áo thun cotton basic " + id)
+                    .slug("ao-thun-cotton-basic-" + id)
+                    .description("Chất liệu cotton 100%, form regular, phù hợp mặc hằng ngày. ".repeat(8))
+                    .basePrice(199000.0 + id)
+                    .isPublished(true)
+                    .category(category)
+                    .images(List.of(
+                            ProductImageResponse.builder().id(id * 10).image_url("https://res.cloudinary.com/demo/image/upload/p" + id + "_1.jpg").position(1).build(),
+                            ProductImageResponse.builder().id(id * 10 + 1).image_url("https://res.cloudinary.com/demo/image/upload/p" + id + "_2.jpg").position(2).build()))
+                    .totalStock((int) (id * 7 % 120))
+                    .rating(RatingSummaryResponse.builder().averageRating(4.3).reviewCount(12).histogram(Map.of(5, 7, 4, 3, 3, 2)).build())
+                    .build());
+        }
+        return products;
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= count; id++) {
+            Order order = Order.builder()
+                    .id(id)
+                    .code("OD" + (100000 + id))
+                    .status(Enums.OrderStatus.CONFIRMED)
+                    .totalItems(3)
+                    .subtotal(597000.0)
+                    .discountTotal(0.0)
+                    .shippingFee(30000.0)
+                    .grandTotal(627000.0)
+                    .paymentMethod(Enums.PaymentMethod.COD)
+                    .paymentStatus(Enums.PaymentStatus.UNPAID)
+                    .shippingAddressSnapshot("{\"fullName\":\"Nguyễn Văn A\",\"line\":\"12 Lê Lợi, Quận 1, TP.HCM\"}")
+                    .placedAt(now)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            List<OrderItem> items = new ArrayList<>();
+            for (long line = 1; line <= 3; line++) {
+                items.add(OrderItem.builder()
+                        .id(id * 10 + line)
+                        .order(order)
+                        .productName("Áo thun cotton basic " + line)
+                        .sku("SKU" + line + "-RED-M")
+                        .unitPrice(199000.0)
+                        .quantity(1)
+                        .lineTotal(199000.0)
+                        .build());
+            }
+            order.setItems(items);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,226 @@
+package com.project.ClothingEcommerceWebsite.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project.ClothingEcommerceWebsite.configs.JacksonBinaryConfig;
+import com.project.ClothingEcommerceWebsite.configs.RateLimitProperties;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductDetailResponse;
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductListResponse;
+import com.project.ClothingEcommerceWebsite.models.ProductVariant;
+import com.project.ClothingEcommerceWebsite.services.ProductImageService;
+import com.project.ClothingEcommerceWebsite.services.ProductService;
+import com.project.ClothingEcommerceWebsite.services.impl.*;
+import com.project.ClothingEcommerceWebsite.utils.FieldSelection;
+import com.project.ClothingEcommerceWebsite.utils.RateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ProductController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import({JacksonBinaryConfig.class, ProductDetailCache.class})
+class ProductControllerContentNegotiationTest {
+
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final String DETAIL_URL = "/api/v1/products/1";
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    @MockBean
+    private ProductService productService;
+    @MockBean
+    private ProductImageService productImageService;
+    @MockBean
+    private SalesRankingEngine salesRankingEngine;
+    @MockBean
+    private CoPurchaseIndex coPurchaseIndex;
+    @MockBean
+    private SimilarProductIndex similarProductIndex;
+    @MockBean
+    private SlugDirectory slugDirectory;
+    @MockBean
+    private ProductAvailabilityIndex availabilityIndex;
+    @MockBean
+    private RateLimitProperties rateLimitProperties;
+    @MockBean
+    private RateLimiter rateLimiter;
+    @MockBean
+    private JwtDecoder jwtDecoder;
+
+    @BeforeEach
+    void setUp() {
+        productDetailCache.invalidateAll();
+        when(productService.getProductById(1L, false)).thenReturn(ProductDetailResponse.builder()
+                .id(1L).sku("TS01").name("Áo thun basic").slug("ao-thun-basic").basePrice(150000.0).build());
+        when(productService.getProductById(1L, true)).thenReturn(ProductDetailResponse.builder()
+                .id(1L).sku("TS01").name("Áo thun basic").slug("ao-thun-basic").basePrice(150000.0)
+                .variants(List.of(ProductVariant.builder().id(11L).sku("TS01-RED-M").price(150000.0).build()))
+                .inventories(List.of())
+                .build());
+        when(productService.getAllProduct(eq(null), any(Pageable.class), any(FieldSelection.class))).thenReturn(List.of(
+                ProductListResponse.builder().id(1L).name("Áo thun basic").basePrice(150000.0).build(),
+                ProductListResponse.builder().id(2L).name("Quần jean").basePrice(390000.0).build()));
+    }
+
+    @Test
+    void detailDefaultsToJson() throws Exception {
+        mockMvc.perform(get(DETAIL_URL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.name").value("Áo thun basic"));
+    }
+
+    @Test
+    void wildcardAcceptStaysJson() throws Exception {
+        mockMvc.perform(get(DETAIL_URL).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/v1/products?current=1&pageSize=10").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void detailAsCbor() throws Exception {
+        MvcResult result = mockMvc.perform(get(DETAIL_URL).accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR))
+                .andReturn();
+        JsonNode body = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Áo thun basic", body.get("name").asText());
+        assertEquals(150000.0, body.get("basePrice").asDouble());
+    }
+
+    @Test
+    void detailAsSmile() throws Exception {
+        MvcResult result = mockMvc.perform(get(DETAIL_URL).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn();
+        JsonNode body = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("ao-thun-basic", body.get("slug").asText());
+    }
+
+    @Test
+    void listAsCborAndSmile() throws Exception {
+        MvcResult cbor = mockMvc.perform(get("/api/v1/products?current=1&pageSize=10").accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR))
+                .andReturn();
+        assertEquals(2, cborMapper.readTree(cbor.getResponse().getContentAsByteArray()).size());
+        MvcResult smile = mockMvc.perform(get("/api/v1/products?current=1&pageSize=10").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn();
+        assertEquals("Quần jean", smileMapper.readTree(smile.getResponse().getContentAsByteArray()).get(1).get("name").asText());
+    }
+
+    @Test
+    void qualityValuesDecideBetweenJsonAndBinary() throws Exception {
+        mockMvc.perform(get(DETAIL_URL).header(HttpHeaders.ACCEPT, "application/json;q=0.9, application/cbor"))
+                .andExpect(content().contentTypeCompatibleWith(CBOR));
+        mockMvc.perform(get(DETAIL_URL).header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        // Cùng độ ưu tiên thì giữ JSON
+        mockMvc.perform(get(DETAIL_URL).header(HttpHeaders.ACCEPT, "application/json, application/x-jackson-smile"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get(DETAIL_URL).header(HttpHeaders.ACCEPT, "application/cbor;q=0.4, application/x-jackson-smile;q=0.8"))
+                .andExpect(content().contentTypeCompatibleWith(SMILE));
+        mockMvc.perform(get(DETAIL_URL).header(HttpHeaders.ACCEPT, "application/cbor, */*;q=0.1"))
+                .andExpect(content().contentTypeCompatibleWith(CBOR));
+    }
+
+    @Test
+    void etagIsPerFormatAndRevalidates() throws Exception {
+        String jsonEtag = mockMvc.perform(get(DETAIL_URL).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String cborEtag = mockMvc.perform(get(DETAIL_URL).accept(CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String smileEtag = mockMvc.perform(get(DETAIL_URL).accept(SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(jsonEtag);
+        assertNotEquals(jsonEtag, cborEtag);
+        assertNotEquals(cborEtag, smileEtag);
+
+        mockMvc.perform(get(DETAIL_URL).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, jsonEtag));
+        mockMvc.perform(get(DETAIL_URL).accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, cborEtag));
+        // ETag của định dạng khác không được coi là khớp
+        mockMvc.perform(get(DETAIL_URL).accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR));
+        mockMvc.perform(get(DETAIL_URL).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, smileEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        assertEquals("Áo thun basic", jsonMapper.readTree(mockMvc.perform(get(DETAIL_URL))
+                .andReturn().getResponse().getContentAsByteArray()).get("name").asText());
+    }
+
+    @Test
+    void variantListsOnlyWhenRequested() throws Exception {
+        mockMvc.perform(get(DETAIL_URL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.variants").doesNotExist())
+                .andExpect(jsonPath("$.inventories").doesNotExist());
+        String fullEtag = mockMvc.perform(get(DETAIL_URL + "?withVariants=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.variants[0].sku").value("TS01-RED-M"))
+                .andExpect(jsonPath("$.inventories").isArray())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // Hai bản được cache riêng, bản mặc định vẫn không kèm danh sách
+        mockMvc.perform(get(DETAIL_URL))
+                .andExpect(jsonPath("$.variants").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, not(fullEtag)));
+    }
+
+    @Test
+    void emptyFieldSelectionKeepsAllFields() throws Exception {
+        mockMvc.perform(get(DETAIL_URL + "?fields=id,name"))
+                .andExpect(jsonPath("$.name").value("Áo thun basic"))
+                .andExpect(jsonPath("$.sku").doesNotExist());
+        for (String fields : new String[]{"", ",", " , ,"}) {
+            mockMvc.perform(get(DETAIL_URL).param("fields", fields))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value("Áo thun basic"))
+                    .andExpect(jsonPath("$.sku").value("TS01"));
+        }
+    }
+}
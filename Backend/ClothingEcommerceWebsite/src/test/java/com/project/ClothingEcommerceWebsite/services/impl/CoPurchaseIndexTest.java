@@ -0,0 +1,119 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.RelatedProductResponse;
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.models.Order;
+import com.project.ClothingEcommerceWebsite.models.OrderItem;
+import com.project.ClothingEcommerceWebsite.models.Product;
+import com.project.ClothingEcommerceWebsite.repositories.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Đơn commit trong lúc rebuild quét phải được đếm đúng một lần
+class CoPurchaseIndexTest {
+
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private CoPurchaseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CoPurchaseIndex(orderItemRepository, 10, 100, 50);
+        when(orderItemRepository.findMaxOrderId()).thenReturn(2L);
+    }
+
+    @Test
+    void orderCommittedAfterItsRangeWasReadIsMergedLater() {
+        when(orderItemRepository.findOrderProductsInRange(anyLong(), anyLong(), eq(Enums.OrderStatus.CANCELLED)))
+                .thenAnswer(invocation -> {
+                    List<OrderItemRepository.OrderProductView> rows = rows(1L, 10L, 11L, 2L, 10L, 12L);
+                    // Đơn 3 commit sau khi lần đọc đã lấy snapshot
+                    index.recordOrder(items(3L, 10L, 11L));
+                    return rows;
+                });
+
+        index.rebuild();
+        assertEquals(1, scoreOf(10L, 11L));
+        index.mergeDelta();
+
+        assertEquals(2, scoreOf(10L, 11L));
+        assertEquals(1, scoreOf(10L, 12L));
+    }
+
+    @Test
+    void orderCommittedBeforeItsRangeWasReadIsNotCountedTwice() {
+        when(orderItemRepository.findOrderProductsInRange(anyLong(), anyLong(), eq(Enums.OrderStatus.CANCELLED)))
+                .thenAnswer(invocation -> {
+                    // Đơn 2 commit trong lúc rebuild nhưng trước khi khoảng id của nó được đọc
+                    index.recordOrder(items(2L, 10L, 12L));
+                    return rows(1L, 10L, 11L, 2L, 10L, 12L);
+                });
+
+        index.rebuild();
+        index.mergeDelta();
+
+        assertEquals(1, scoreOf(10L, 12L));
+        assertEquals(1, scoreOf(12L, 10L));
+    }
+
+    @Test
+    void deltaRecordedBeforeRebuildIsReadFromDatabaseOnly() {
+        when(orderItemRepository.findOrderProductsInRange(anyLong(), anyLong(), eq(Enums.OrderStatus.CANCELLED)))
+                .thenReturn(rows(1L, 10L, 11L, 2L, 10L, 12L));
+        index.recordOrder(items(2L, 10L, 12L));
+
+        index.rebuild();
+        index.mergeDelta();
+
+        assertEquals(1, scoreOf(10L, 11L));
+        assertEquals(1, scoreOf(10L, 12L));
+    }
+
+    private long scoreOf(Long productId, Long neighbor) {
+        return index.related(productId, 10).stream()
+                .filter(related -> related.getId().equals(neighbor))
+                .mapToLong(RelatedProductResponse::getScore)
+                .findFirst()
+                .orElse(0L);
+    }
+
+    private static List<OrderItem> items(Long orderId, Long... productIds) {
+        Order order = Order.builder().id(orderId).build();
+        List<OrderItem> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            items.add(OrderItem.builder().order(order).product(Product.builder().id(productId).build()).build());
+        }
+        return items;
+    }
+
+    // Mỗi bộ ba (orderId, sản phẩm, sản phẩm) là một đơn gồm hai dòng order_items
+    private static List<OrderItemRepository.OrderProductView> rows(long... values) {
+        List<OrderItemRepository.OrderProductView> rows = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 3) {
+            for (int j = 1; j <= 2; j++) {
+                rows.add(new Row(values[i], values[i + j]));
+            }
+        }
+        return rows;
+    }
+
+    private record Row(long orderId, long productId) implements OrderItemRepository.OrderProductView {
+        @Override
+        public long getOrderId() {
+            return orderId;
+        }
+
+        @Override
+        public long getProductId() {
+            return productId;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.models.Color;
+import com.project.ClothingEcommerceWebsite.models.ProductVariant;
+import com.project.ClothingEcommerceWebsite.models.Size;
+import com.project.ClothingEcommerceWebsite.repositories.InventoryRepository;
+import com.project.ClothingEcommerceWebsite.repositories.ProductVariantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// Thay đổi tồn kho chỉ chặn việc cache ma trận của đúng sản phẩm đó
+class ProductAvailabilityIndexTest {
+
+    private final ProductVariantRepository productVariantRepository = mock(ProductVariantRepository.class);
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private ProductAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductAvailabilityIndex(productVariantRepository, inventoryRepository, 60, 100);
+        when(inventoryRepository.findStockByVariantIdIn(anyCollection())).thenReturn(List.of(stock(11L, 5)));
+    }
+
+    @Test
+    void changeToAnotherProductDoesNotBlockCaching() {
+        when(productVariantRepository.findAllByProductId(1L)).thenAnswer(invocation -> {
+            index.adjust(2L, 21L, -1);
+            return List.of(variant(11L));
+        });
+
+        index.get(1L);
+        index.get(1L);
+
+        verify(productVariantRepository, times(1)).findAllByProductId(anyLong());
+    }
+
+    @Test
+    void changeToSameProductDuringLoadIsNotCached() {
+        when(productVariantRepository.findAllByProductId(1L))
+                .thenAnswer(invocation -> {
+                    index.adjust(1L, 11L, -1);
+                    return List.of(variant(11L));
+                })
+                .thenReturn(List.of(variant(11L)));
+
+        index.get(1L);
+        index.get(1L);
+        index.adjust(1L, 11L, -2);
+
+        verify(productVariantRepository, times(2)).findAllByProductId(anyLong());
+        assertArrayEquals(new int[]{3}, index.get(1L).getStock());
+    }
+
+    private static ProductVariant variant(Long id) {
+        return ProductVariant.builder()
+                .id(id)
+                .size(Size.builder().id(1L).code("M").name("Size M").sortOrder(2).build())
+                .color(Color.builder().id(1L).code("RED").name("Đỏ").build())
+                .build();
+    }
+
+    private static InventoryRepository.VariantStockView stock(Long variantId, Integer quantity) {
+        return new InventoryRepository.VariantStockView() {
+            @Override
+            public Long getVariantId() {
+                return variantId;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// So sánh độ trễ trung bình của đường đọc tuần tự và song song trên DB đã cấu hình (không chạy trong mvn test):
+// mvn test -Dtest=ProductDetailLoaderBenchmark -Dbenchmark.productId=<id> [-Dbenchmark.iterations=20]
+@SpringBootTest(properties = "product.detail.parallel.enabled=true")
+@EnabledIfSystemProperty(named = "benchmark.productId", matches = "\\d+")
+class ProductDetailLoaderBenchmark {
+
+    @Autowired
+    private ProductDetailLoader loader;
+
+    @Test
+    void compareSequentialAndParallel() {
+        Long productId = Long.getLong("benchmark.productId");
+        int iterations = Integer.getInteger("benchmark.iterations", 20);
+        // Lượt làm nóng
+        loader.loadSequential(productId);
+        loader.loadParallel(productId);
+        long sequentialNanos = 0;
+        long parallelNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            loader.loadSequential(productId);
+            sequentialNanos += System.nanoTime() - started;
+            started = System.nanoTime();
+            loader.loadParallel(productId);
+            parallelNanos += System.nanoTime() - started;
+        }
+        System.out.printf("product %d, %d iterations: sequential %.2f ms, parallel %.2f ms%n", productId, iterations,
+                sequentialNanos / 1_000_000.0 / iterations, parallelNanos / 1_000_000.0 / iterations);
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.ClothingEcommerceWebsite.exception.ServiceUnavailableException;
+import com.project.ClothingEcommerceWebsite.models.*;
+import com.project.ClothingEcommerceWebsite.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Đường đọc song song trả entity đã detach: mọi quan hệ mà response dùng phải được nạp trong worker
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductDetailLoader.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-detail;MODE=MySQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "product.detail.parallel.enabled=true",
+        "product.detail.parallel.reserved-connections=2",
+        "product.detail.parallel.timeout-ms=500"
+})
+class ProductDetailLoaderTest {
+
+    @Autowired
+    private ProductDetailLoader loader;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private SizeRepository sizeRepository;
+    @Autowired
+    private ColorRepository colorRepository;
+    @Autowired
+    private ProductVariantRepository productVariantRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @MockBean
+    private ProductRatingAggregator ratingAggregator;
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAll();
+        productVariantRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll(categoryRepository.findAll().stream()
+                .filter(category -> category.getParentId() != null).toList());
+        categoryRepository.deleteAll();
+        sizeRepository.deleteAll();
+        colorRepository.deleteAll();
+    }
+
+    @Test
+    void parallelLoadReturnsInitializedAssociations() throws Exception {
+        Long productId = seedProduct();
+
+        ProductDetailLoader.Parts parts = loader.loadParallel(productId);
+
+        assertEquals("Áo", parts.product().getCategory().getParentId().getName());
+        assertEquals("Size M", parts.variants().get(0).getSize().getName());
+        assertEquals("Đỏ", parts.variants().get(0).getColor().getName());
+        assertEquals("Size M", parts.inventories().get(0).getProductVariant().getSize().getName());
+        assertEquals(7, parts.inventories().get(0).getQuantity());
+        // Jackson đọc cùng các quan hệ này khi render variants/inventories/category
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertDoesNotThrow(() -> objectMapper.writeValueAsString(parts.variants()));
+        assertDoesNotThrow(() -> objectMapper.writeValueAsString(parts.inventories()));
+        assertDoesNotThrow(() -> objectMapper.writeValueAsString(parts.product().getCategory()));
+    }
+
+    @Test
+    void parallelAndSequentialLoadsAgree() {
+        Long productId = seedProduct();
+
+        ProductDetailLoader.Parts parallel = loader.loadParallel(productId);
+        ProductDetailLoader.Parts sequential = loader.loadSequential(productId);
+
+        assertEquals(sequential.product().getId(), parallel.product().getId());
+        assertEquals(sequential.variants().size(), parallel.variants().size());
+        assertEquals(sequential.inventories().size(), parallel.inventories().size());
+    }
+
+    @Test
+    void missingProductFails() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> loader.loadParallel(-1L));
+        assertTrue(error.getMessage().contains("Product not found"));
+    }
+
+    @Test
+    void timeoutFailsFastWithoutSequentialRetry() {
+        Long productId = seedProduct();
+        when(ratingAggregator.summaryOf(productId)).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return null;
+        });
+
+        assertThrows(ServiceUnavailableException.class, () -> loader.load(productId));
+        verify(ratingAggregator, times(1)).summaryOf(productId);
+    }
+
+    private Long seedProduct() {
+        Category parent = categoryRepository.save(Category.builder().name("Áo").slug("ao").isActive(true).build());
+        Category child = categoryRepository.save(Category.builder()
+                .name("Áo thun").slug("ao-thun").isActive(true).parentId(parent).build());
+        Product product = productRepository.save(Product.builder()
+                .sku("TS01").name("Áo thun basic").slug("ao-thun-basic")
+                .basePrice(150000.0).isPublished(true).category(child).build());
+        Size size = sizeRepository.save(Size.builder().code("M").name("Size M").sortOrder(2).build());
+        Color color = colorRepository.save(Color.builder().code("RED").name("Đỏ").build());
+        ProductVariant variant = productVariantRepository.save(ProductVariant.builder()
+                .product(product).size(size).color(color).sku("TS01-RED-M").price(150000.0).build());
+        inventoryRepository.save(Inventory.builder().productVariant(variant).quantity(7).build());
+        return product.getId();
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.ProductRankingResponse;
+import com.project.ClothingEcommerceWebsite.models.Enums;
+import com.project.ClothingEcommerceWebsite.models.Order;
+import com.project.ClothingEcommerceWebsite.models.OrderItem;
+import com.project.ClothingEcommerceWebsite.models.Product;
+import com.project.ClothingEcommerceWebsite.repositories.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Đơn commit trong lúc rebuild quét phải được đếm đúng một lần
+class SalesRankingEngineTest {
+
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final LocalDateTime placedAt = LocalDateTime.now().minusMinutes(5);
+    private SalesRankingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SalesRankingEngine(orderItemRepository, 10);
+    }
+
+    @Test
+    void orderCommittedDuringScanAndReadByItIsCountedOnce() {
+        when(orderItemRepository.findSalesSince(any(), eq(Enums.OrderStatus.CANCELLED)))
+                .thenAnswer(invocation -> {
+                    // Đơn 2 commit trong lúc rebuild nhưng trước snapshot của câu truy vấn
+                    engine.recordPlaced(items(2L, 10L, 3), placedAt);
+                    return List.of(row(1L, 10L, 1), row(2L, 10L, 3));
+                });
+
+        engine.rebuild();
+
+        assertEquals(4, soldOf(10L));
+    }
+
+    @Test
+    void orderCommittedAfterScanIsAddedAndItsCancelSubtracted() {
+        when(orderItemRepository.findSalesSince(any(), eq(Enums.OrderStatus.CANCELLED)))
+                .thenAnswer(invocation -> {
+                    List<OrderItemRepository.SaleView> rows = List.of(row(1L, 10L, 1));
+                    // Đơn 2 commit rồi bị hủy sau snapshot, đơn 1 đã được quét rồi bị hủy
+                    engine.recordPlaced(items(2L, 10L, 3), placedAt);
+                    engine.recordCancelled(items(2L, 10L, 3), placedAt);
+                    engine.recordPlaced(items(3L, 10L, 2), placedAt);
+                    engine.recordCancelled(items(1L, 10L, 1), placedAt);
+                    return rows;
+                });
+
+        engine.rebuild();
+
+        assertEquals(2, soldOf(10L));
+    }
+
+    @Test
+    void cancelOfOrderAlreadyExcludedByScanIsIgnored() {
+        when(orderItemRepository.findSalesSince(any(), eq(Enums.OrderStatus.CANCELLED)))
+                .thenAnswer(invocation -> {
+                    // Đơn 1 bị hủy trước snapshot nên câu truy vấn đã loại nó
+                    engine.recordCancelled(items(1L, 10L, 1), placedAt);
+                    return List.of(row(2L, 10L, 2));
+                });
+
+        engine.rebuild();
+
+        assertEquals(2, soldOf(10L));
+    }
+
+    private long soldOf(Long productId) {
+        return engine.bestsellers(SalesRankingEngine.Window.DAY, null, 10).stream()
+                .filter(entry -> entry.getId().equals(productId))
+                .mapToLong(ProductRankingResponse::getSold)
+                .findFirst()
+                .orElse(0L);
+    }
+
+    private static List<OrderItem> items(Long orderId, Long productId, int quantity) {
+        Order order = Order.builder().id(orderId).build();
+        return List.of(OrderItem.builder()
+                .order(order)
+                .product(Product.builder().id(productId).build())
+                .quantity(quantity)
+                .build());
+    }
+
+    private OrderItemRepository.SaleView row(Long orderId, Long productId, int quantity) {
+        return new Row(orderId, productId, quantity, placedAt);
+    }
+
+    private record Row(Long orderId, Long productId, Integer quantity, LocalDateTime createdAt)
+            implements OrderItemRepository.SaleView {
+        @Override
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        @Override
+        public Long getProductId() {
+            return productId;
+        }
+
+        @Override
+        public Long getVariantId() {
+            return null;
+        }
+
+        @Override
+        public Long getCategoryId() {
+            return null;
+        }
+
+        @Override
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
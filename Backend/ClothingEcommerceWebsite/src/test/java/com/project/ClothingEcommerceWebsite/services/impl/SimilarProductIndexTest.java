@@ -0,0 +1,78 @@
+package com.project.ClothingEcommerceWebsite.services.impl;
+
+import com.project.ClothingEcommerceWebsite.dtos.respond.SimilarProductResponse;
+import com.project.ClothingEcommerceWebsite.models.Product;
+import com.project.ClothingEcommerceWebsite.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Refresh chỉ tính lại sản phẩm thay đổi và các sản phẩm có chung từ, không đọc lại toàn bộ catalog
+class SimilarProductIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private SimilarProductIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SimilarProductIndex(productRepository, 10, 1.0);
+        when(productRepository.findAll()).thenReturn(List.of(
+                product(1L, "Áo thun cotton trắng"),
+                product(2L, "Áo thun cotton đen"),
+                product(3L, "Quần jean xanh"),
+                product(4L, "Quần jean đen")));
+        index.rebuild();
+    }
+
+    @Test
+    void newProductJoinsNeighboursOfProductsSharingTerms() {
+        assertEquals(List.of(4L), neighbours(3L));
+
+        when(productRepository.findById(5L)).thenReturn(Optional.of(product(5L, "Quần jean rách")));
+        index.markChanged(5L);
+        index.refresh();
+
+        assertTrue(neighbours(3L).contains(5L));
+        assertTrue(neighbours(5L).containsAll(List.of(3L, 4L)));
+        assertFalse(neighbours(5L).contains(1L));
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void deletedProductLeavesNeighbourLists() {
+        assertTrue(neighbours(2L).contains(1L));
+
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        index.markChanged(1L);
+        index.refresh();
+
+        assertFalse(neighbours(2L).contains(1L));
+        assertTrue(neighbours(1L).isEmpty());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void unpublishedProductIsNotRecommended() {
+        Product hidden = product(4L, "Quần jean đen");
+        hidden.setIsPublished(false);
+        when(productRepository.findById(4L)).thenReturn(Optional.of(hidden));
+        index.markChanged(4L);
+        index.refresh();
+
+        assertFalse(neighbours(3L).contains(4L));
+        assertFalse(neighbours(2L).contains(4L));
+    }
+
+    private List<Long> neighbours(Long productId) {
+        return index.similar(productId, 10).stream().map(SimilarProductResponse::getId).toList();
+    }
+
+    private static Product product(Long id, String name) {
+        return Product.builder().id(id).name(name).isPublished(true).build();
+    }
+}
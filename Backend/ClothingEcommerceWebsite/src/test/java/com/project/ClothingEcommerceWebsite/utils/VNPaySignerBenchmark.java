@@ -0,0 +1,92 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import com.project.ClothingEcommerceWebsite.configs.VnPayConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// So sánh Mac giữ sẵn theo thread của VNPaySigner với Mac.getInstance + init mỗi lần ký,
+// khi N thread cùng ký song song (không chạy trong mvn test):
+// mvn test -Dtest=VNPaySignerBenchmark -Dbenchmark=true [-Dbenchmark.threads=8] [-Dbenchmark.iterations=20000]
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VNPaySignerBenchmark {
+
+    private static final String SECRET = "TESTSECRETKEY0123456789ABCDEFGH";
+    private static final String DATA = "vnp_Amount=15000000&vnp_Command=pay&vnp_CreateDate=20240601120000"
+            + "&vnp_CurrCode=VND&vnp_IpAddr=127.0.0.1&vnp_Locale=vn&vnp_OrderInfo=Thanh+toan+don+hang%3A+1024"
+            + "&vnp_OrderType=other&vnp_ReturnUrl=http%3A%2F%2Flocalhost%3A5173%2Fpayment%2Fvnpay-return"
+            + "&vnp_TmnCode=TESTTMN1&vnp_TxnRef=1024&vnp_Version=2.1.0";
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void comparePooledAndPerCallMac() throws Exception {
+        int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+        int iterations = Integer.getInteger("benchmark.iterations", 20000);
+        VnPayConfig config = mock(VnPayConfig.class);
+        when(config.getSecretKey()).thenReturn(SECRET);
+        VNPaySigner signer = new VNPaySigner(config);
+        SecretKeySpec key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
+        Callable<String> pooled = () -> signer.sign(DATA);
+        Callable<String> perCall = () -> {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(key);
+            return HexFormat.of().withUpperCase().formatHex(mac.doFinal(DATA.getBytes(StandardCharsets.UTF_8)));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // Lượt làm nóng cho JIT và provider
+            measure(executor, threads, iterations / 10, pooled);
+            measure(executor, threads, iterations / 10, perCall);
+            report("pooled", threads, iterations, measure(executor, threads, iterations, pooled));
+            report("per-call", threads, iterations, measure(executor, threads, iterations, perCall));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Trả {wall ns, tổng CPU ns của các thread}
+    private long[] measure(ExecutorService executor, int threads, int iterations, Callable<String> sign)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong cpuNanos = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                long started = threadMXBean.getCurrentThreadCpuTime();
+                for (int i = 0; i < iterations; i++) {
+                    sign.call();
+                }
+                cpuNanos.addAndGet(threadMXBean.getCurrentThreadCpuTime() - started);
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return new long[]{System.nanoTime() - started, cpuNanos.get()};
+    }
+
+    private static void report(String name, int threads, int iterations, long[] result) {
+        long ops = (long) threads * iterations;
+        System.out.printf("%-8s %2d threads x %d: %10.0f ops/s %8.0f ns cpu/op%n", name, threads, iterations,
+                ops / (result[0] / 1_000_000_000.0), (double) result[1] / ops);
+    }
+}
@@ -0,0 +1,151 @@
+package com.project.ClothingEcommerceWebsite.utils;
+
+import com.project.ClothingEcommerceWebsite.configs.VnPayConfig;
+import com.project.ClothingEcommerceWebsite.services.impl.VNPayServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Chuỗi ký phải trùng từng byte với cách VNPay tính (URLEncoder UTF-8), nếu lệch thì mọi callback bị từ chối
+class VNPaySignerTest {
+
+    private static final String SECRET = "TESTSECRETKEY0123456789ABCDEFGH";
+
+    private VnPayConfig config;
+    private VNPaySigner signer;
+
+    @BeforeEach
+    void setUp() {
+        config = mock(VnPayConfig.class);
+        when(config.getSecretKey()).thenReturn(SECRET);
+        when(config.getCommand()).thenReturn("pay");
+        when(config.getReturnUrl()).thenReturn("http://localhost:5173/payment/vnpay-return?from=checkout");
+        when(config.getTmnCode()).thenReturn("TESTTMN1");
+        when(config.getVersion()).thenReturn("2.1.0");
+        when(config.getPayUrl()).thenReturn("https://sandbox.vnpayment.vn/paymentv2/vpcpay.html");
+        signer = new VNPaySigner(config);
+    }
+
+    @Test
+    void encoderMatchesUrlEncoderOnVietnameseText() {
+        String[] samples = {
+                "Thanh toán đơn hàng: 1024",
+                "Áo thun cổ tròn – size M, màu đỏ",
+                "Nguyễn Văn Ánh, 12 Lê Lợi, Quận 1, TP.HCM",
+                "ĐƯỜNG ĐẠI LỘ THĂNG LONG ~ !@#$%^&*()_+={}[]|\\:;\"'<>,.?/",
+                "emoji 👕👖 và ký tự 𝒜",
+                "",
+        };
+        for (String sample : samples) {
+            assertEquals(URLEncoder.encode(sample, StandardCharsets.UTF_8), encode(sample), sample);
+        }
+    }
+
+    @Test
+    void encoderMatchesUrlEncoderOnRandomInput() {
+        Random random = new Random(20240601L);
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                sb.append(randomChar(random));
+            }
+            String sample = sb.toString();
+            assertEquals(URLEncoder.encode(sample, StandardCharsets.UTF_8), encode(sample), () -> dump(sample));
+        }
+    }
+
+    @Test
+    void signMatchesHmacSha512() throws Exception {
+        String data = "vnp_Amount=15000000&vnp_OrderInfo=Thanh+toan+don+hang%3A+7";
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+        String expected = HexFormat.of().withUpperCase().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expected, signer.sign(data));
+        assertEquals(128, signer.sign(data).length());
+    }
+
+    @Test
+    void verifyAcceptsOwnSignatureAndRejectsTampering() {
+        String data = "vnp_Amount=15000000&vnp_TxnRef=7";
+        String hash = signer.sign(data);
+
+        assertTrue(signer.verify(data, hash));
+        assertTrue(signer.verify(data, hash.toLowerCase()));
+        assertFalse(signer.verify("vnp_Amount=15000001&vnp_TxnRef=7", hash));
+        assertFalse(signer.verify(data, hash.substring(1)));
+        assertFalse(signer.verify(data, "zz" + hash.substring(2)));
+        assertFalse(signer.verify(data, null));
+    }
+
+    @Test
+    void paymentUrlRoundTripsThroughCallbackVerification() {
+        VNPayServiceImpl service = new VNPayServiceImpl(config, signer);
+        String url = service.createPaymentUrl(150000L, "ĐH-2024/0001 ưu đãi");
+        Map<String, String> params = parseQuery(url.substring(url.indexOf('?') + 1));
+        String hash = params.get("vnp_SecureHash");
+
+        // VNPay trả lại các tham số đã ký, thêm vnp_SecureHash(Type) không nằm trong chuỗi ký
+        params.put("vnp_SecureHashType", "HmacSHA512");
+        assertTrue(service.verifyPaymentCallback(params, hash));
+
+        Map<String, String> tamperedAmount = new LinkedHashMap<>(params);
+        tamperedAmount.put("vnp_Amount", "100");
+        assertFalse(service.verifyPaymentCallback(tamperedAmount, hash));
+
+        Map<String, String> tamperedRef = new LinkedHashMap<>(params);
+        tamperedRef.put("vnp_TxnRef", "ĐH-2024/0002 ưu đãi");
+        assertFalse(service.verifyPaymentCallback(tamperedRef, hash));
+
+        Map<String, String> extraParam = new LinkedHashMap<>(params);
+        extraParam.put("vnp_BankCode", "NCB");
+        assertFalse(service.verifyPaymentCallback(extraParam, hash));
+    }
+
+    private static String encode(String value) {
+        StringBuilder sb = new StringBuilder();
+        VNPaySigner.appendUrlEncoded(sb, value);
+        return sb.toString();
+    }
+
+    // Trộn ASCII, tiếng Việt (Latin-1, Latin Extended, tổ hợp dấu), ký tự 3 byte, cặp surrogate và surrogate lẻ
+    private static char[] randomChar(Random random) {
+        return switch (random.nextInt(7)) {
+            case 0, 1 -> new char[]{(char) random.nextInt(0x80)};
+            case 2 -> new char[]{(char) (0xC0 + random.nextInt(0x40))};
+            case 3 -> new char[]{(char) (0x1EA0 + random.nextInt(0x5A))};
+            case 4 -> new char[]{(char) (0x800 + random.nextInt(0xD800 - 0x800))};
+            case 5 -> Character.toChars(0x10000 + random.nextInt(0x10FFFF - 0x10000));
+            default -> new char[]{(char) (0xD800 + random.nextInt(0x800))};
+        };
+    }
+
+    private static String dump(String value) {
+        StringBuilder sb = new StringBuilder();
+        value.chars().forEach(c -> sb.append(String.format("\\u%04X", c)));
+        return sb.toString();
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
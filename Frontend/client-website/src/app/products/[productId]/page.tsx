@@ -36,7 +36,7 @@ export default function ProductDetailPage() {
   }: { data: Product | undefined; isLoading: boolean } = useQuery({
     queryKey: ["product", parseInt(productId as string)],
     queryFn: async () => {
-      const response = await privateClient.get(`/products/${productId}`);
+      const response = await privateClient.get(`/products/${productId}?withVariants=true`);
       return response.data?.data || response.data;
     },
     enabled: !!productId,
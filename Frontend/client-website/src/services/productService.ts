@@ -39,7 +39,7 @@ export const useProductQuery = (productId: number | null) => {
     queryKey: productKeys.detail(productId!),
     queryFn: async () => {
       if (!productId) throw new Error("Product ID is required");
-      const response = await privateClient.get(`/products/${productId}`);
+      const response = await privateClient.get(`/products/${productId}?withVariants=true`);
       return (response.data?.data || response.data) as Product;
     },
     enabled: !!productId,
@@ -155,7 +155,7 @@ export const useProductStore = create<ProductState>()(
 
             // Fetch updated product with images
             const updatedRes = await privateClient.get(
-              `/products/${productId}`
+              `/products/${productId}?withVariants=true`
             );
             const updatedProduct = updatedRes.data?.data || updatedRes.data;
 